@@ -2,8 +2,10 @@ package com.cityasist;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class CityAsistApplication {
     public static void main(String[] args) {
         SpringApplication.run(CityAsistApplication.class, args);
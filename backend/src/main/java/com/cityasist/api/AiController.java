@@ -1,6 +1,8 @@
 package com.cityasist.api;
 
+import com.cityasist.api.dto.FloodBatchRequest;
 import com.cityasist.service.AiGatewayService;
+import com.cityasist.service.FloodRiskPipeline;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -11,15 +13,27 @@ import java.util.Map;
 @RequestMapping("/api/v1/ai")
 public class AiController {
     private final AiGatewayService aiGatewayService;
-    public AiController(AiGatewayService aiGatewayService) { this.aiGatewayService = aiGatewayService; }
+    private final FloodRiskPipeline floodRiskPipeline;
+    public AiController(AiGatewayService aiGatewayService, FloodRiskPipeline floodRiskPipeline) {
+        this.aiGatewayService = aiGatewayService;
+        this.floodRiskPipeline = floodRiskPipeline;
+    }
 
     @PostMapping("/predict/flood")
     public ResponseEntity<Map<String, Object>> predictFlood(@RequestParam(required = false) String model,
+                                                            @RequestParam(required = false) Long budgetMs,
                                                             @RequestBody Map<String, Object> features) {
         if (model != null && !model.isBlank()) {
             features.put("_model", model);
         }
-        return ResponseEntity.ok(aiGatewayService.predictFlood(features));
+        return ResponseEntity.ok(aiGatewayService.predictFlood(features, budgetMs));
+    }
+
+    @PostMapping("/predict/flood:batch")
+    public ResponseEntity<Map<String, Object>> predictFloodBatch(@RequestParam(required = false) String model,
+                                                                 @RequestBody FloodBatchRequest req) {
+        return ResponseEntity.ok(aiGatewayService.predictFloodBatch(model, req.getRainfallMm(), req.getRiverLevelM(),
+                req.getSoilMoisturePercent(), req.getZone()));
     }
 
     @PostMapping("/predict/aqi")
@@ -27,6 +41,11 @@ public class AiController {
         return ResponseEntity.ok(aiGatewayService.predictAqi(features));
     }
 
+    @GetMapping("/risk-map")
+    public ResponseEntity<FloodRiskPipeline.RiskMap> riskMap() {
+        return ResponseEntity.ok(floodRiskPipeline.current());
+    }
+
     @GetMapping("/models")
     public ResponseEntity<List<Map<String, Object>>> models() {
         return ResponseEntity.ok(aiGatewayService.listModels());
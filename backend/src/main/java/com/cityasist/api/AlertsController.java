@@ -1,8 +1,11 @@
 package com.cityasist.api;
 
 import com.cityasist.api.dto.AlertCreateRequest;
+import com.cityasist.api.dto.AlertReadRequest;
+import com.cityasist.api.dto.AlertZonesRequest;
 import com.cityasist.domain.Alert;
 import com.cityasist.repo.AlertRepository;
+import com.cityasist.service.AlertService;
 import jakarta.validation.Valid;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
@@ -14,56 +17,88 @@ import org.springframework.web.bind.annotation.*;
 @RequestMapping("/api/v1/alerts")
 public class AlertsController {
     private final AlertRepository alerts;
-    private final com.cityasist.repo.AlertReadRepository alertReads;
+    private final AlertService alertService;
 
-    public AlertsController(AlertRepository alerts, com.cityasist.repo.AlertReadRepository alertReads) {
+    public AlertsController(AlertRepository alerts, AlertService alertService) {
         this.alerts = alerts;
-        this.alertReads = alertReads;
+        this.alertService = alertService;
     }
 
     @GetMapping
     public Page<Alert> list(@RequestParam(defaultValue = "0") int page,
                             @RequestParam(defaultValue = "20") int size) {
-        var auth = org.springframework.security.core.context.SecurityContextHolder.getContext().getAuthentication();
-        java.util.UUID userId = null;
-        if (auth != null && auth.isAuthenticated()) {
-            Object p = auth.getPrincipal();
-            if (p instanceof java.util.UUID u) userId = u;
-            else if (p instanceof String s) { try { userId = java.util.UUID.fromString(s); } catch (Exception ignored) {} }
-        }
+        java.util.UUID userId = currentUserId();
         if (userId == null) {
             return alerts.findAllByOrderByCreatedAtDesc(PageRequest.of(page, size));
         }
-        return alerts.findVisibleForUser(userId, PageRequest.of(page, size));
+        return alertService.listUnread(userId, page, size);
     }
 
     @PostMapping
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<Alert> create(@Valid @RequestBody AlertCreateRequest req) {
-        Alert a = new Alert();
-        a.setType(req.getType());
-        a.setTitle(req.getTitle());
-        a.setMessage(req.getMessage());
-        a.setSeverity(req.getSeverity());
-        a.setZone(req.getZone());
-        return ResponseEntity.ok(alerts.save(a));
+        return ResponseEntity.ok(alertService.create(req.getType(), req.getTitle(), req.getMessage(), req.getSeverity(), req.getZone()));
+    }
+
+    @GetMapping("/unread-count")
+    public ResponseEntity<java.util.Map<String, Long>> unreadCount() {
+        java.util.UUID userId = currentUserId();
+        if (userId == null) return ResponseEntity.status(401).build();
+        return ResponseEntity.ok(java.util.Map.of("count", alertService.unreadCount(userId)));
     }
 
     @PostMapping("/{id}/read")
     public ResponseEntity<Void> markRead(@PathVariable java.util.UUID id) {
-        var auth = org.springframework.security.core.context.SecurityContextHolder.getContext().getAuthentication();
-        if (auth == null || !auth.isAuthenticated()) return ResponseEntity.status(401).build();
-        java.util.UUID userId = null;
-        Object p = auth.getPrincipal();
-        if (p instanceof java.util.UUID u) userId = u;
-        else if (p instanceof String s) { try { userId = java.util.UUID.fromString(s); } catch (Exception ignored) {} }
+        java.util.UUID userId = currentUserId();
         if (userId == null) return ResponseEntity.status(401).build();
-        if (!alertReads.existsByAlertIdAndUserId(id, userId)) {
-            com.cityasist.domain.AlertRead ar = new com.cityasist.domain.AlertRead();
-            ar.setAlertId(id);
-            ar.setUserId(userId);
-            alertReads.save(ar);
-        }
+        alertService.markRead(userId, id);
         return ResponseEntity.noContent().build();
     }
+
+    @PostMapping("/read")
+    public ResponseEntity<Void> markRead(@Valid @RequestBody AlertReadRequest req) {
+        java.util.UUID userId = currentUserId();
+        if (userId == null) return ResponseEntity.status(401).build();
+        alertService.markRead(userId, req.getIds());
+        return ResponseEntity.noContent().build();
+    }
+
+    @PostMapping("/read-all")
+    public ResponseEntity<Void> markAllRead() {
+        java.util.UUID userId = currentUserId();
+        if (userId == null) return ResponseEntity.status(401).build();
+        alertService.markAllRead(userId);
+        return ResponseEntity.noContent().build();
+    }
+
+    @GetMapping(value = "/stream", produces = org.springframework.http.MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<org.springframework.web.servlet.mvc.method.annotation.SseEmitter> stream(
+            @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
+        java.util.UUID userId = currentUserId();
+        if (userId == null) return ResponseEntity.status(401).build();
+        return ResponseEntity.ok(alertService.stream(userId, lastEventId));
+    }
+
+    @GetMapping("/zones")
+    public ResponseEntity<java.util.Set<String>> zones() {
+        java.util.UUID userId = currentUserId();
+        if (userId == null) return ResponseEntity.status(401).build();
+        return ResponseEntity.ok(alertService.zones(userId));
+    }
+
+    @PutMapping("/zones")
+    public ResponseEntity<java.util.Set<String>> subscribe(@Valid @RequestBody AlertZonesRequest req) {
+        java.util.UUID userId = currentUserId();
+        if (userId == null) return ResponseEntity.status(401).build();
+        return ResponseEntity.ok(alertService.subscribe(userId, req.getZones()));
+    }
+
+    private java.util.UUID currentUserId() {
+        var auth = org.springframework.security.core.context.SecurityContextHolder.getContext().getAuthentication();
+        if (auth == null || !auth.isAuthenticated()) return null;
+        Object p = auth.getPrincipal();
+        if (p instanceof java.util.UUID u) return u;
+        if (p instanceof String s) { try { return java.util.UUID.fromString(s); } catch (Exception ignored) {} }
+        return null;
+    }
 }
@@ -1,9 +1,12 @@
 package com.cityasist.api;
 
 import com.cityasist.service.AiGatewayService;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.util.Map;
 
@@ -13,4 +16,11 @@ public class ApiExceptionHandler {
     public ResponseEntity<Map<String, Object>> handleRuntime(RuntimeException ex) {
         return ResponseEntity.badRequest().body(Map.of("error", ex.getMessage()));
     }
+
+    @ExceptionHandler(ResponseStatusException.class)
+    public ResponseEntity<Map<String, Object>> handleStatus(ResponseStatusException ex) {
+        var resp = ResponseEntity.status(ex.getStatusCode());
+        if (ex.getStatusCode().value() == HttpStatus.TOO_MANY_REQUESTS.value()) resp.header(HttpHeaders.RETRY_AFTER, "1");
+        return resp.body(Map.of("error", ex.getReason() != null ? ex.getReason() : ex.getStatusCode().toString()));
+    }
 }
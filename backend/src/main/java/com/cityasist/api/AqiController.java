@@ -0,0 +1,30 @@
+package com.cityasist.api;
+
+import com.cityasist.service.AqiEngine;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/api/v1/aqi")
+public class AqiController {
+    private final AqiEngine aqiEngine;
+    public AqiController(AqiEngine aqiEngine) { this.aqiEngine = aqiEngine; }
+
+    @GetMapping("/sensors")
+    public List<AqiEngine.SensorAqi> sensors() {
+        return aqiEngine.sensors();
+    }
+
+    @GetMapping("/sensors/{id}")
+    public ResponseEntity<AqiEngine.SensorAqi> sensor(@PathVariable UUID id) {
+        return ResponseEntity.of(aqiEngine.sensor(id));
+    }
+
+    @GetMapping("/zones/{zone}")
+    public ResponseEntity<AqiEngine.ZoneAqi> zone(@PathVariable String zone) {
+        return ResponseEntity.of(aqiEngine.zone(zone));
+    }
+}
@@ -22,8 +22,8 @@ public class AuthController {
 
     @PostMapping("/refresh")
     public ResponseEntity<?> refresh(@Valid @RequestBody RefreshRequest req) {
-        String newAccess = authService.refresh(req);
-        return ResponseEntity.ok(java.util.Map.of("access_token", newAccess));
+        LoginResponse tokens = authService.refresh(req);
+        return ResponseEntity.ok(java.util.Map.of("access_token", tokens.getAccessToken(), "refresh_token", tokens.getRefreshToken()));
     }
 
     @PostMapping("/register")
@@ -0,0 +1,24 @@
+package com.cityasist.api;
+
+import com.cityasist.service.DispatchEngine;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/v1/dispatch")
+public class DispatchController {
+    private final DispatchEngine dispatchEngine;
+
+    public DispatchController(DispatchEngine dispatchEngine) { this.dispatchEngine = dispatchEngine; }
+
+    @GetMapping
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> status() {
+        return ResponseEntity.ok(dispatchEngine.snapshot());
+    }
+}
@@ -7,14 +7,19 @@ import com.cityasist.api.dto.IncidentStatusUpdateRequest;
 import com.cityasist.api.dto.IncidentSeverityUpdateRequest;
 import com.cityasist.domain.Incident;
 import com.cityasist.domain.IncidentTimeline;
+import com.cityasist.service.IncidentExportService;
 import com.cityasist.service.IncidentService;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import org.springframework.data.domain.Page;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
 import java.time.Instant;
+import java.util.Locale;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -22,8 +27,12 @@ import java.util.UUID;
 @RequestMapping("/api/v1/incidents")
 public class IncidentsController {
     private final IncidentService incidentService;
+    private final IncidentExportService exportService;
 
-    public IncidentsController(IncidentService incidentService) { this.incidentService = incidentService; }
+    public IncidentsController(IncidentService incidentService, IncidentExportService exportService) {
+        this.incidentService = incidentService;
+        this.exportService = exportService;
+    }
 
     @GetMapping
     @PreAuthorize("hasAnyRole('ADMIN','OPERATOR','CITIZEN')")
@@ -31,9 +40,37 @@ public class IncidentsController {
                                @RequestParam Optional<String> severity,
                                @RequestParam Optional<String> zone,
                                @RequestParam Optional<Instant> from,
+                               @RequestParam(defaultValue = "false") boolean archived,
                                @RequestParam(defaultValue = "0") int page,
-                               @RequestParam(defaultValue = "20") int size) {
-        return incidentService.list(status, severity, zone, from, page, size);
+                               @RequestParam(defaultValue = "20") int size,
+                               @RequestParam java.util.Map<String, String> params) {
+        // The list pages over live incidents; archived=true pages over the archive instead
+        return incidentService.list(status, severity, zone, from, dataFilter(params), archived, page, size);
+    }
+
+    // data.<key>=value filters match top-level keys of the incident's JSON payload
+    private static java.util.Map<String, String> dataFilter(java.util.Map<String, String> params) {
+        java.util.Map<String, String> dataFilter = new java.util.LinkedHashMap<>();
+        params.forEach((k, v) -> {
+            if (k.startsWith("data.") && k.length() > 5) dataFilter.put(k.substring(5), v);
+        });
+        return dataFilter;
+    }
+
+    @GetMapping("/export")
+    @PreAuthorize("hasRole('ADMIN')")
+    public void export(@RequestParam(defaultValue = "csv") String format,
+                       @RequestParam Optional<String> status,
+                       @RequestParam Optional<String> severity,
+                       @RequestParam Optional<String> zone,
+                       @RequestParam Optional<Instant> from,
+                       @RequestParam java.util.Map<String, String> params,
+                       HttpServletResponse response) throws IOException {
+        IncidentExportService.Format f = IncidentExportService.Format.valueOf(format.trim().toUpperCase(Locale.ROOT));
+        String ext = f == IncidentExportService.Format.CSV ? "csv" : "ndjson";
+        response.setContentType("application/gzip");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"incidents." + ext + ".gz\"");
+        exportService.export(f, status, severity, zone, from, dataFilter(params), response.getOutputStream());
     }
 
     @PostMapping
@@ -60,8 +97,8 @@ public class IncidentsController {
     @PostMapping("/number/{num}/assign")
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<Incident> assignByNumber(@PathVariable Long num, @Valid @RequestBody AssignRequest req) {
-        return incidentService.getByNumber(num)
-                .map(i -> ResponseEntity.ok(incidentService.assign(i.getId(), UUID.fromString(req.getAssignedTo()))))
+        return incidentService.assignByNumber(num, UUID.fromString(req.getAssignedTo()))
+                .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
 
@@ -78,8 +115,8 @@ public class IncidentsController {
     @GetMapping("/number/{num}/timeline")
     @PreAuthorize("hasAnyRole('ADMIN','OPERATOR','CITIZEN')")
     public ResponseEntity<java.util.List<IncidentTimeline>> getTimelineByNumber(@PathVariable Long num) {
-        return incidentService.getByNumber(num)
-                .map(i -> ResponseEntity.ok(incidentService.timeline(i.getId())))
+        return incidentService.timelineByNumber(num)
+                .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
 
@@ -91,8 +128,8 @@ public class IncidentsController {
     @PostMapping("/number/{num}/status")
     @PreAuthorize("hasAnyRole('ADMIN','OPERATOR')")
     public ResponseEntity<Incident> updateStatusByNumber(@PathVariable Long num, @Valid @RequestBody IncidentStatusUpdateRequest req) {
-        return incidentService.getByNumber(num)
-                .map(i -> ResponseEntity.ok(incidentService.updateStatus(i.getId(), req)))
+        return incidentService.updateStatusByNumber(num, req)
+                .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
 
@@ -104,8 +141,8 @@ public class IncidentsController {
     @PostMapping("/number/{num}/severity")
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<Incident> updateSeverityByNumber(@PathVariable Long num, @Valid @RequestBody IncidentSeverityUpdateRequest req) {
-        return incidentService.getByNumber(num)
-                .map(i -> ResponseEntity.ok(incidentService.updateSeverity(i.getId(), req)))
+        return incidentService.updateSeverityByNumber(num, req)
+                .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
 }
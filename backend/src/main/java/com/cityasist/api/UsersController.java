@@ -3,13 +3,14 @@ package com.cityasist.api;
 import com.cityasist.api.dto.OperatorCreateRequest;
 import com.cityasist.domain.Role;
 import com.cityasist.domain.User;
+import com.cityasist.repo.OperatorDirectoryRepository.OperatorSummary;
 import com.cityasist.service.UsersService;
 import jakarta.validation.Valid;
+import org.springframework.data.domain.Page;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
 import java.util.UUID;
 
 @RestController
@@ -29,8 +30,9 @@ public class UsersController {
 
     @GetMapping("/operators")
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<List<User>> listOperators() {
-        return ResponseEntity.ok(usersService.listByRole(Role.OPERATOR));
+    public ResponseEntity<Page<OperatorSummary>> listOperators(@RequestParam(defaultValue = "0") int page,
+                                                               @RequestParam(defaultValue = "50") int size) {
+        return ResponseEntity.ok(usersService.listByRole(Role.OPERATOR, page, size));
     }
 
     @DeleteMapping("/operators/{id}")
@@ -0,0 +1,16 @@
+package com.cityasist.api.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+import java.util.UUID;
+
+public class AlertReadRequest {
+    @NotEmpty
+    @Size(max = 1000)
+    private List<UUID> ids;
+
+    public List<UUID> getIds() { return ids; }
+    public void setIds(List<UUID> ids) { this.ids = ids; }
+}
@@ -0,0 +1,15 @@
+package com.cityasist.api.dto;
+
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+public class AlertZonesRequest {
+    @NotNull
+    @Size(max = 50)
+    private List<String> zones; // empty list = alerts for every zone
+
+    public List<String> getZones() { return zones; }
+    public void setZones(List<String> zones) { this.zones = zones; }
+}
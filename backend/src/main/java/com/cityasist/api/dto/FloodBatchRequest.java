@@ -0,0 +1,23 @@
+package com.cityasist.api.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/** Columnar flood features: element i of every array belongs to row i; omit an array that wasn't measured. */
+public class FloodBatchRequest {
+    @JsonProperty("rainfall_mm")
+    private double[] rainfallMm;
+    @JsonProperty("river_level_m")
+    private double[] riverLevelM;
+    @JsonProperty("soil_moisture_percent")
+    private double[] soilMoisturePercent;
+    private String[] zone;
+
+    public double[] getRainfallMm() { return rainfallMm; }
+    public void setRainfallMm(double[] rainfallMm) { this.rainfallMm = rainfallMm; }
+    public double[] getRiverLevelM() { return riverLevelM; }
+    public void setRiverLevelM(double[] riverLevelM) { this.riverLevelM = riverLevelM; }
+    public double[] getSoilMoisturePercent() { return soilMoisturePercent; }
+    public void setSoilMoisturePercent(double[] soilMoisturePercent) { this.soilMoisturePercent = soilMoisturePercent; }
+    public String[] getZone() { return zone; }
+    public void setZone(String[] zone) { this.zone = zone; }
+}
@@ -11,6 +11,7 @@ public class OperatorCreateRequest {
     private String email;
     @NotBlank
     private String password;
+    private String zone; // optional home zone used for dispatch
 
     public String getName() { return name; }
     public void setName(String name) { this.name = name; }
@@ -18,4 +19,6 @@ public class OperatorCreateRequest {
     public void setEmail(String email) { this.email = email; }
     public String getPassword() { return password; }
     public void setPassword(String password) { this.password = password; }
+    public String getZone() { return zone; }
+    public void setZone(String zone) { this.zone = zone; }
 }
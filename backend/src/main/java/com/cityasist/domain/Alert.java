@@ -1,6 +1,9 @@
 package com.cityasist.domain;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Generated;
+import org.hibernate.generator.EventType;
+
 import java.time.Instant;
 import java.util.UUID;
 
@@ -11,6 +14,10 @@ public class Alert {
     @GeneratedValue
     private UUID id;
 
+    @Column(name = "seq", unique = true, updatable = false, insertable = false)
+    @Generated(event = EventType.INSERT)
+    private Long seq;
+
     @Column(nullable = false)
     private String type; // e.g., flood, aqi
 
@@ -28,8 +35,17 @@ public class Alert {
     @Column(name = "created_at", nullable = false)
     private Instant createdAt = Instant.now();
 
+    // Only ever incremented in SQL when a repeat is merged, never written back from the entity
+    @Column(nullable = false, updatable = false)
+    private int occurrences = 1;
+
+    @Column(name = "last_seen_at", updatable = false)
+    private Instant lastSeenAt;
+
     public UUID getId() { return id; }
     public void setId(UUID id) { this.id = id; }
+    public Long getSeq() { return seq; }
+    public void setSeq(Long seq) { this.seq = seq; }
     public String getType() { return type; }
     public void setType(String type) { this.type = type; }
     public String getTitle() { return title; }
@@ -42,4 +58,8 @@ public class Alert {
     public void setZone(String zone) { this.zone = zone; }
     public Instant getCreatedAt() { return createdAt; }
     public void setCreatedAt(Instant createdAt) { this.createdAt = createdAt; }
+    public int getOccurrences() { return occurrences; }
+    public void setOccurrences(int occurrences) { this.occurrences = occurrences; }
+    public Instant getLastSeenAt() { return lastSeenAt; }
+    public void setLastSeenAt(Instant lastSeenAt) { this.lastSeenAt = lastSeenAt; }
 }
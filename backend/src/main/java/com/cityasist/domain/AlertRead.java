@@ -1,31 +0,0 @@
-package com.cityasist.domain;
-
-import jakarta.persistence.*;
-import java.time.Instant;
-import java.util.UUID;
-
-@Entity
-@Table(name = "alert_reads")
-public class AlertRead {
-    @Id
-    @GeneratedValue
-    private UUID id;
-
-    @Column(name = "alert_id", nullable = false)
-    private UUID alertId;
-
-    @Column(name = "user_id", nullable = false)
-    private UUID userId;
-
-    @Column(name = "read_at", nullable = false)
-    private Instant readAt = Instant.now();
-
-    public UUID getId() { return id; }
-    public void setId(UUID id) { this.id = id; }
-    public UUID getAlertId() { return alertId; }
-    public void setAlertId(UUID alertId) { this.alertId = alertId; }
-    public UUID getUserId() { return userId; }
-    public void setUserId(UUID userId) { this.userId = userId; }
-    public Instant getReadAt() { return readAt; }
-    public void setReadAt(Instant readAt) { this.readAt = readAt; }
-}
\ No newline at end of file
@@ -22,6 +22,8 @@ public class User {
     @Column(nullable = false)
     private Role role;
 
+    private String zone;
+
     @Column(name = "password_hash", nullable = false)
     @JsonIgnore
     private String passwordHash;
@@ -37,6 +39,8 @@ public class User {
     public void setEmail(String email) { this.email = email; }
     public Role getRole() { return role; }
     public void setRole(Role role) { this.role = role; }
+    public String getZone() { return zone; }
+    public void setZone(String zone) { this.zone = zone; }
     public String getPasswordHash() { return passwordHash; }
     public void setPasswordHash(String passwordHash) { this.passwordHash = passwordHash; }
     public Instant getCreatedAt() { return createdAt; }
@@ -0,0 +1,48 @@
+package com.cityasist.repo;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/** Per-user alert read state rows, plus access to the legacy per-alert alert_reads rows they replace. */
+@Repository
+public class AlertReadStateRepository {
+    public record State(long watermark, byte[] bits) {}
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public AlertReadStateRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public Optional<State> find(UUID userId) {
+        return jdbcTemplate.query("SELECT watermark, read_bits FROM alert_read_state WHERE user_id = ?",
+                (rs, n) -> new State(rs.getLong("watermark"), rs.getBytes("read_bits")), userId).stream().findFirst();
+    }
+
+    public void save(UUID userId, long watermark, byte[] bits) {
+        jdbcTemplate.update("""
+            INSERT INTO alert_read_state (user_id, watermark, read_bits, updated_at) VALUES (?, ?, ?, now())
+            ON CONFLICT (user_id) DO UPDATE SET watermark = EXCLUDED.watermark, read_bits = EXCLUDED.read_bits, updated_at = now()
+        """, userId, watermark, bits);
+    }
+
+    public boolean insertIfAbsent(UUID userId, long watermark, byte[] bits) {
+        return jdbcTemplate.update("""
+            INSERT INTO alert_read_state (user_id, watermark, read_bits) VALUES (?, ?, ?)
+            ON CONFLICT (user_id) DO NOTHING
+        """, userId, watermark, bits) > 0;
+    }
+
+    public List<Long> findLegacyReadSeqs(UUID userId) {
+        return jdbcTemplate.queryForList(
+                "SELECT a.seq FROM alert_reads r JOIN alerts a ON a.id = r.alert_id WHERE r.user_id = ?", Long.class, userId);
+    }
+
+    public int deleteLegacyReads(UUID userId) {
+        return jdbcTemplate.update("DELETE FROM alert_reads WHERE user_id = ?", userId);
+    }
+}
@@ -5,20 +5,64 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 public interface AlertRepository extends JpaRepository<Alert, UUID> {
     Page<Alert> findAllByOrderByCreatedAtDesc(Pageable pageable);
 
+    List<Alert> findAllByOrderBySeqDesc(Pageable pageable);
+
+    @Query(value = "SELECT a.seq FROM alerts a WHERE a.seq > :after ORDER BY a.seq", nativeQuery = true)
+    List<Long> findSeqsAfter(@Param("after") long after);
+
+    // Lowest seq above the watermark that belongs to an existing alert in the user's zones the user has not
+    // read; seqs that were never used don't match. Null when every such alert past the watermark is read.
+    // zones holds normalized zone keys plus '' for citywide alerts and only applies when scoped.
+    @Query(value = """
+        SELECT min(a.seq) FROM alerts a
+        WHERE a.seq > :watermark AND a.seq NOT IN (:readSeqs)
+          AND (:scoped = false OR coalesce(lower(btrim(a.zone)), '') IN (:zones))
+    """, nativeQuery = true)
+    Long findFirstUnreadAfter(@Param("watermark") long watermark,
+                              @Param("readSeqs") Collection<Long> readSeqs,
+                              @Param("scoped") boolean scoped,
+                              @Param("zones") Collection<String> zones);
+
+    // Highest seq in (after, upTo] created at or before the cutoff; every seq below it was handed out before
+    // the cutoff, so a missing one belongs to a rolled-back insert rather than one still in flight
+    @Query(value = "SELECT max(a.seq) FROM alerts a WHERE a.seq > :after AND a.seq <= :upTo AND a.created_at <= :cutoff",
+            nativeQuery = true)
+    Long findSettledSeq(@Param("after") long after, @Param("upTo") long upTo, @Param("cutoff") Instant cutoff);
+
+    Optional<Alert> findFirstByTypeIgnoreCaseAndZoneAndSeverityIgnoreCaseOrderBySeqDesc(String type, String zone, String severity);
+
+    @Modifying
+    @Query("update Alert a set a.occurrences = a.occurrences + 1, a.lastSeenAt = :seenAt where a.id = :id")
+    int recordRepeat(@Param("id") UUID id, @Param("seenAt") Instant seenAt);
+
+    // Range scan on ux_alerts_seq above the user's read watermark, minus the few reads past it.
+    // zones holds normalized zone keys plus '' for citywide alerts and only applies when scoped.
     @Query(value = """
         SELECT * FROM alerts a
-        WHERE (:userId IS NULL OR NOT EXISTS (
-            SELECT 1 FROM alert_reads ar WHERE ar.alert_id = a.id AND ar.user_id = :userId
-        ))
-        ORDER BY a.created_at DESC
+        WHERE a.seq > :watermark AND a.seq NOT IN (:readSeqs)
+          AND (:scoped = false OR coalesce(lower(btrim(a.zone)), '') IN (:zones))
+        ORDER BY a.seq DESC
+    """, countQuery = """
+        SELECT count(*) FROM alerts a
+        WHERE a.seq > :watermark AND a.seq NOT IN (:readSeqs)
+          AND (:scoped = false OR coalesce(lower(btrim(a.zone)), '') IN (:zones))
     """, nativeQuery = true)
-    Page<Alert> findVisibleForUser(@Param("userId") UUID userId, Pageable pageable);
+    Page<Alert> findUnreadAfter(@Param("watermark") long watermark,
+                                @Param("readSeqs") Collection<Long> readSeqs,
+                                @Param("scoped") boolean scoped,
+                                @Param("zones") Collection<String> zones,
+                                Pageable pageable);
 }
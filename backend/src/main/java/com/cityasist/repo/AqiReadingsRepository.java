@@ -0,0 +1,44 @@
+package com.cityasist.repo;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+/** PM2.5/PM10 readings from AQI sensors, read forward in ingest order from an (ingested_at, id) keyset cursor. */
+@Repository
+public class AqiReadingsRepository {
+    public record AqiReading(UUID id, UUID sensorId, String zone, Instant time, Instant ingestedAt, Double pm25, Double pm10) {}
+
+    private static final String READINGS_FROM_SQL = """
+        SELECT t.id, t.sensor_id, s.zone, t.time, t.ingested_at,
+               CASE WHEN jsonb_typeof(t.data->'pm25') = 'number' THEN (t.data->>'pm25')::float8 END AS pm25,
+               CASE WHEN jsonb_typeof(t.data->'pm10') = 'number' THEN (t.data->>'pm10')::float8 END AS pm10
+        FROM sensor_timeseries t JOIN sensors s ON s.id = t.sensor_id
+        WHERE lower(s.type) = 'aqi' AND (t.ingested_at, t.id) > (?, ?) AND t.time >= ?
+          AND (jsonb_typeof(t.data->'pm25') = 'number' OR jsonb_typeof(t.data->'pm10') = 'number')
+        ORDER BY t.ingested_at, t.id
+        LIMIT ?
+    """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public AqiReadingsRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /** Readings ingested after the ({@code ingestedAt}, {@code id}) position with an event time from {@code since}, in ingest order. */
+    public List<AqiReading> findIngestedAfter(Instant ingestedAt, UUID id, Instant since, int limit) {
+        return jdbcTemplate.query(READINGS_FROM_SQL, (rs, n) -> new AqiReading(
+                rs.getObject("id", UUID.class),
+                rs.getObject("sensor_id", UUID.class),
+                rs.getString("zone"),
+                rs.getTimestamp("time").toInstant(),
+                rs.getTimestamp("ingested_at").toInstant(),
+                rs.getObject("pm25", Double.class),
+                rs.getObject("pm10", Double.class)), Timestamp.from(ingestedAt), id, Timestamp.from(since), limit);
+    }
+}
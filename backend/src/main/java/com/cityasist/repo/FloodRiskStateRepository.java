@@ -0,0 +1,30 @@
+package com.cityasist.repo;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/** Which zones are above the flood alert threshold, as last recorded by the risk pipeline. */
+@Repository
+public class FloodRiskStateRepository {
+    private final JdbcTemplate jdbcTemplate;
+
+    public FloodRiskStateRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public Set<String> findZonesAbove() {
+        return new HashSet<>(jdbcTemplate.queryForList(
+                "SELECT zone FROM flood_risk_state WHERE above_threshold", String.class));
+    }
+
+    public void save(String zone, boolean aboveThreshold, Double probability) {
+        jdbcTemplate.update("""
+            INSERT INTO flood_risk_state (zone, above_threshold, probability, updated_at) VALUES (?, ?, ?, now())
+            ON CONFLICT (zone) DO UPDATE
+            SET above_threshold = EXCLUDED.above_threshold, probability = EXCLUDED.probability, updated_at = now()
+        """, zone, aboveThreshold, probability);
+    }
+}
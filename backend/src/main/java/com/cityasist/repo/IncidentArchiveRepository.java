@@ -0,0 +1,149 @@
+package com.cityasist.repo;
+
+import com.cityasist.domain.Incident;
+import com.cityasist.domain.IncidentTimeline;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/** Read access to, and batched moves into, the partitioned incident archive tables. */
+@Repository
+public class IncidentArchiveRepository {
+    private static final String INCIDENT_COLUMNS =
+            "id, incident_number, title, type, severity, status, location, reported_at, assigned_to, reporter_id, data";
+
+    // One statement per batch: copy timeline rows and incidents, then delete the hot rows (timeline cascades)
+    private static final String MOVE_BATCH_SQL = """
+        WITH batch AS (
+            SELECT i.id FROM incidents i
+            WHERE upper(i.status) = ANY (?)
+              AND i.reported_at < ?
+              AND NOT EXISTS (SELECT 1 FROM incident_timeline t WHERE t.incident_id = i.id AND t.time >= ?)
+            ORDER BY i.reported_at
+            LIMIT ?
+            FOR UPDATE SKIP LOCKED
+        ), timeline_rows AS (
+            INSERT INTO incident_timeline_archive (id, incident_id, time, actor, text)
+            SELECT t.id, t.incident_id, t.time, t.actor, t.text
+            FROM incident_timeline t JOIN batch b ON t.incident_id = b.id
+        ), incident_rows AS (
+            INSERT INTO incidents_archive (%1$s)
+            SELECT %2$s FROM incidents i JOIN batch b ON i.id = b.id
+        )
+        DELETE FROM incidents i USING batch b WHERE i.id = b.id
+    """.formatted(INCIDENT_COLUMNS, "i." + INCIDENT_COLUMNS.replace(", ", ", i."));
+
+    private static final RowMapper<Incident> INCIDENT_MAPPER = (rs, n) -> {
+        Incident i = new Incident();
+        i.setId(rs.getObject("id", UUID.class));
+        long number = rs.getLong("incident_number");
+        i.setIncidentNumber(rs.wasNull() ? null : number);
+        i.setTitle(rs.getString("title"));
+        i.setType(rs.getString("type"));
+        i.setSeverity(rs.getString("severity"));
+        i.setStatus(rs.getString("status"));
+        i.setLocation(rs.getString("location"));
+        Timestamp reported = rs.getTimestamp("reported_at");
+        i.setReportedAt(reported != null ? reported.toInstant() : null);
+        i.setAssignedTo(rs.getObject("assigned_to", UUID.class));
+        i.setReporterId(rs.getObject("reporter_id", UUID.class));
+        i.setData(rs.getString("data"));
+        return i;
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public IncidentArchiveRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public Optional<Incident> findById(UUID id) {
+        return jdbcTemplate.query("SELECT " + INCIDENT_COLUMNS + " FROM incidents_archive WHERE id = ?", INCIDENT_MAPPER, id)
+                .stream().findFirst();
+    }
+
+    public Optional<Incident> findByIncidentNumber(Long number) {
+        return jdbcTemplate.query("SELECT " + INCIDENT_COLUMNS + " FROM incidents_archive WHERE incident_number = ?", INCIDENT_MAPPER, number)
+                .stream().findFirst();
+    }
+
+    /**
+     * Archived counterpart of the incident list search: the same filters, a null argument meaning "any".
+     * dataFilter is a JSON object matched by containment, like the hot table's data filter.
+     */
+    public Page<Incident> search(UUID reporterId, UUID assignedTo, String status, String severity, Instant from,
+                                 String zonePattern, String dataFilter, Pageable pageable) {
+        StringBuilder where = new StringBuilder(" WHERE (location IS NULL OR location LIKE ?)");
+        List<Object> args = new ArrayList<>();
+        args.add(zonePattern);
+        if (reporterId != null) { where.append(" AND reporter_id = ?"); args.add(reporterId); }
+        if (assignedTo != null) { where.append(" AND assigned_to = ?"); args.add(assignedTo); }
+        if (status != null) { where.append(" AND status = ?"); args.add(status); }
+        if (severity != null) { where.append(" AND severity = ?"); args.add(severity); }
+        if (from != null) { where.append(" AND reported_at >= ?"); args.add(Timestamp.from(from)); }
+        if (dataFilter != null) { where.append(" AND data @> CAST(? AS jsonb)"); args.add(dataFilter); }
+
+        Long total = jdbcTemplate.queryForObject("SELECT count(*) FROM incidents_archive" + where, Long.class, args.toArray());
+        List<Object> pageArgs = new ArrayList<>(args);
+        pageArgs.add(pageable.getPageSize());
+        pageArgs.add(pageable.getOffset());
+        List<Incident> content = jdbcTemplate.query(
+                "SELECT " + INCIDENT_COLUMNS + " FROM incidents_archive" + where + " ORDER BY reported_at DESC LIMIT ? OFFSET ?",
+                INCIDENT_MAPPER, pageArgs.toArray());
+        return new PageImpl<>(content, pageable, total != null ? total : 0);
+    }
+
+    public List<IncidentTimeline> findTimeline(UUID incidentId) {
+        return jdbcTemplate.query("SELECT id, time, actor, text FROM incident_timeline_archive WHERE incident_id = ? ORDER BY time",
+                (rs, n) -> {
+                    IncidentTimeline t = new IncidentTimeline();
+                    t.setId(rs.getObject("id", UUID.class));
+                    t.setTime(rs.getTimestamp("time").toInstant());
+                    t.setActor(rs.getString("actor"));
+                    t.setText(rs.getString("text"));
+                    return t;
+                }, incidentId);
+    }
+
+    public Optional<Instant> oldestCandidate(List<String> statuses, Instant cutoff) {
+        Timestamp ts = jdbcTemplate.query(
+                connection -> {
+                    var ps = connection.prepareStatement("SELECT min(reported_at) FROM incidents WHERE upper(status) = ANY (?) AND reported_at < ?");
+                    ps.setArray(1, connection.createArrayOf("varchar", statuses.toArray()));
+                    ps.setTimestamp(2, Timestamp.from(cutoff));
+                    return ps;
+                },
+                rs -> rs.next() ? rs.getTimestamp(1) : null);
+        return Optional.ofNullable(ts).map(Timestamp::toInstant);
+    }
+
+    public void ensureYearPartition(int year) {
+        LocalDate start = LocalDate.of(year, 1, 1);
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS incidents_archive_" + year
+                + " PARTITION OF incidents_archive FOR VALUES FROM ('" + start.atStartOfDay().toInstant(ZoneOffset.UTC)
+                + "') TO ('" + start.plusYears(1).atStartOfDay().toInstant(ZoneOffset.UTC) + "')");
+    }
+
+    public int moveBatch(List<String> statuses, Instant cutoff, int batchSize) {
+        return jdbcTemplate.update(connection -> {
+            var ps = connection.prepareStatement(MOVE_BATCH_SQL);
+            ps.setArray(1, connection.createArrayOf("varchar", statuses.toArray()));
+            ps.setTimestamp(2, Timestamp.from(cutoff));
+            ps.setTimestamp(3, Timestamp.from(cutoff));
+            ps.setInt(4, batchSize);
+            return ps;
+        });
+    }
+}
@@ -4,6 +4,7 @@ import com.cityasist.domain.Incident;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
@@ -18,6 +19,27 @@ public interface IncidentRepository extends JpaRepository<Incident, UUID> {
     Page<Incident> findByAssignedTo(UUID assignedTo, Pageable pageable);
     java.util.Optional<Incident> findByIncidentNumber(Long incidentNumber);
 
+    @Query("select i from Incident i where i.assignedTo is null and upper(i.status) not in :closedStatuses")
+    List<Incident> findUnassignedOpen(@Param("closedStatuses") java.util.Collection<String> closedStatuses);
+
+    @Query("""
+        select i.assignedTo, count(i) from Incident i
+        where i.assignedTo is not null and upper(i.status) not in :closedStatuses
+        group by i.assignedTo
+    """)
+    List<Object[]> countOpenByAssignee(@Param("closedStatuses") java.util.Collection<String> closedStatuses);
+
+    @Query("select i from Incident i where i.assignedTo is null and upper(i.status) = 'OPEN' and upper(i.severity) in :severities")
+    List<Incident> findUnacknowledged(@Param("severities") java.util.Collection<String> severities);
+
+    @Modifying
+    @Query("""
+        update Incident i set i.assignedTo = :userId
+        where i.id = :id and i.assignedTo is null and upper(i.status) not in :closedStatuses
+    """)
+    int assignIfUnassigned(@Param("id") UUID id, @Param("userId") UUID userId,
+                           @Param("closedStatuses") java.util.Collection<String> closedStatuses);
+
     @Query("""
         select i from Incident i
         where (i.reporterId = coalesce(:reporterId, i.reporterId))
@@ -37,4 +59,33 @@ public interface IncidentRepository extends JpaRepository<Incident, UUID> {
             @Param("zonePattern") String zonePattern,
             Pageable pageable
     );
+
+    // Same filters as search, plus a jsonb containment match on data that can use the GIN index
+    @Query(value = """
+        SELECT * FROM incidents i
+        WHERE i.data @> CAST(:dataFilter AS jsonb)
+          AND i.reporter_id = coalesce(CAST(:reporterId AS uuid), i.reporter_id)
+          AND i.status = coalesce(CAST(:status AS text), i.status)
+          AND i.severity = coalesce(CAST(:severity AS text), i.severity)
+          AND i.reported_at >= coalesce(CAST(:fromTs AS timestamptz), i.reported_at)
+          AND (i.location IS NULL OR i.location LIKE :zonePattern)
+        ORDER BY i.reported_at DESC
+    """, countQuery = """
+        SELECT count(*) FROM incidents i
+        WHERE i.data @> CAST(:dataFilter AS jsonb)
+          AND i.reporter_id = coalesce(CAST(:reporterId AS uuid), i.reporter_id)
+          AND i.status = coalesce(CAST(:status AS text), i.status)
+          AND i.severity = coalesce(CAST(:severity AS text), i.severity)
+          AND i.reported_at >= coalesce(CAST(:fromTs AS timestamptz), i.reported_at)
+          AND (i.location IS NULL OR i.location LIKE :zonePattern)
+    """, nativeQuery = true)
+    Page<Incident> searchByData(
+            @Param("dataFilter") String dataFilter,
+            @Param("reporterId") String reporterId,
+            @Param("status") String status,
+            @Param("severity") String severity,
+            @Param("fromTs") String fromIso,
+            @Param("zonePattern") String zonePattern,
+            Pageable pageable
+    );
 }
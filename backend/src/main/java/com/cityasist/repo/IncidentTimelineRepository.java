@@ -8,4 +8,5 @@ import java.util.UUID;
 
 public interface IncidentTimelineRepository extends JpaRepository<IncidentTimeline, UUID> {
     List<IncidentTimeline> findByIncidentIdOrderByTimeAsc(UUID incidentId);
+    boolean existsByIncidentIdAndActor(UUID incidentId, String actor);
 }
@@ -0,0 +1,57 @@
+package com.cityasist.repo;
+
+import com.cityasist.domain.Role;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/** Users of one role, a page at a time, with their open-incident counts; never reads password hashes. */
+@Repository
+public class OperatorDirectoryRepository {
+    public record OperatorSummary(UUID id, String name, String email, String role, String zone, Instant createdAt,
+                                  long openIncidents) {}
+
+    // The page of users is cut first; each of them then counts only its own incidents through
+    // idx_incidents_assigned_to, so the cost follows the page size, not the number of assignees
+    private static final String PAGE_SQL = """
+        SELECT u.id, u.name, u.email, u.role, u.zone, u.created_at, o.open_incidents
+        FROM (SELECT id, name, email, role, zone, created_at FROM users
+              WHERE role = ? ORDER BY name, id LIMIT ? OFFSET ?) u
+        CROSS JOIN LATERAL (SELECT count(*) AS open_incidents FROM incidents i
+                            WHERE i.assigned_to = u.id AND upper(i.status) <> ALL (?)) o
+        ORDER BY u.name, u.id
+    """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public OperatorDirectoryRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public List<OperatorSummary> findPage(Role role, Collection<String> closedStatuses, int limit, long offset) {
+        return jdbcTemplate.query(connection -> {
+            var ps = connection.prepareStatement(PAGE_SQL);
+            ps.setString(1, role.name());
+            ps.setInt(2, limit);
+            ps.setLong(3, offset);
+            ps.setArray(4, connection.createArrayOf("varchar", closedStatuses.toArray()));
+            return ps;
+        }, (rs, n) -> new OperatorSummary(
+                rs.getObject("id", UUID.class),
+                rs.getString("name"),
+                rs.getString("email"),
+                rs.getString("role"),
+                rs.getString("zone"),
+                rs.getTimestamp("created_at").toInstant(),
+                rs.getLong("open_incidents")));
+    }
+
+    public long count(Role role) {
+        Long n = jdbcTemplate.queryForObject("SELECT count(*) FROM users WHERE role = ?", Long.class, role.name());
+        return n == null ? 0 : n;
+    }
+}
@@ -1,12 +1,53 @@
 package com.cityasist.repo;
 
-import com.cityasist.domain.RefreshToken;
-import org.springframework.data.jpa.repository.JpaRepository;
+import com.cityasist.domain.Role;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
 
+import java.sql.Timestamp;
+import java.time.Instant;
 import java.util.Optional;
 import java.util.UUID;
 
-public interface RefreshTokenRepository extends JpaRepository<RefreshToken, UUID> {
-    Optional<RefreshToken> findByToken(String token);
-    void deleteByUserId(UUID userId);
+/** Refresh tokens by SHA-256 digest; the plaintext token is never stored. */
+@Repository
+public class RefreshTokenRepository {
+    public record Owner(UUID userId, Role role) {}
+
+    // Consume the presented token and issue its replacement in one statement; no row means invalid
+    private static final String ROTATE_SQL = """
+        WITH used AS (
+            DELETE FROM refresh_tokens
+            WHERE token_hash = ? AND NOT revoked AND expires_at > now()
+            RETURNING user_id, role
+        )
+        INSERT INTO refresh_tokens (id, user_id, token_hash, role, expires_at, revoked)
+        SELECT ?, user_id, ?, role, ?, false FROM used
+        RETURNING user_id, role
+    """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public RefreshTokenRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public void insert(UUID userId, Role role, String tokenHash, Instant expiresAt) {
+        jdbcTemplate.update("INSERT INTO refresh_tokens (id, user_id, token_hash, role, expires_at, revoked) VALUES (?, ?, ?, ?, ?, false)",
+                UUID.randomUUID(), userId, tokenHash, role.name(), Timestamp.from(expiresAt));
+    }
+
+    public Optional<Owner> rotate(String tokenHash, String newTokenHash, Instant newExpiresAt) {
+        return jdbcTemplate.query(ROTATE_SQL,
+                (rs, n) -> new Owner(rs.getObject("user_id", UUID.class), Role.valueOf(rs.getString("role"))),
+                tokenHash, UUID.randomUUID(), newTokenHash, Timestamp.from(newExpiresAt)).stream().findFirst();
+    }
+
+    public int deleteExpiredBatch(int batchSize) {
+        return jdbcTemplate.update("""
+            DELETE FROM refresh_tokens WHERE id IN (
+                SELECT id FROM refresh_tokens WHERE expires_at < now() OR revoked LIMIT ?
+            )
+        """, batchSize);
+    }
 }
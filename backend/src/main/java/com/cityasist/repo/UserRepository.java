@@ -1,11 +1,14 @@
 package com.cityasist.repo;
 
+import com.cityasist.domain.Role;
 import com.cityasist.domain.User;
 import org.springframework.data.jpa.repository.JpaRepository;
 
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 public interface UserRepository extends JpaRepository<User, UUID> {
     Optional<User> findByEmail(String email);
+    List<User> findByRole(Role role);
 }
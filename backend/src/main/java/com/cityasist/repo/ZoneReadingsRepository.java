@@ -0,0 +1,44 @@
+package com.cityasist.repo;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+
+/** Latest hydrological readings per zone, aggregated from sensor_timeseries in a single query. */
+@Repository
+public class ZoneReadingsRepository {
+    /** Newest value of each reading in the zone; null when no sensor reported it in the window. */
+    public record ZoneReadings(String zone, Double rainfallMm, Double riverLevelM, Double soilMoisturePercent, Instant latest) {}
+
+    private static final String LATEST_BY_ZONE_SQL = """
+        SELECT s.zone,
+               (array_agg((t.data->>'rainfall_mm')::float8 ORDER BY t.time DESC)
+                    FILTER (WHERE jsonb_typeof(t.data->'rainfall_mm') = 'number'))[1] AS rainfall_mm,
+               (array_agg((t.data->>'river_level_m')::float8 ORDER BY t.time DESC)
+                    FILTER (WHERE jsonb_typeof(t.data->'river_level_m') = 'number'))[1] AS river_level_m,
+               (array_agg((t.data->>'soil_moisture_percent')::float8 ORDER BY t.time DESC)
+                    FILTER (WHERE jsonb_typeof(t.data->'soil_moisture_percent') = 'number'))[1] AS soil_moisture_percent,
+               max(t.time) AS latest
+        FROM sensor_timeseries t JOIN sensors s ON s.id = t.sensor_id
+        WHERE t.time >= ? AND s.zone IS NOT NULL
+        GROUP BY s.zone
+    """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ZoneReadingsRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public List<ZoneReadings> latestByZone(Instant since) {
+        return jdbcTemplate.query(LATEST_BY_ZONE_SQL, (rs, n) -> new ZoneReadings(
+                rs.getString("zone"),
+                rs.getObject("rainfall_mm", Double.class),
+                rs.getObject("river_level_m", Double.class),
+                rs.getObject("soil_moisture_percent", Double.class),
+                rs.getTimestamp("latest").toInstant()), Timestamp.from(since));
+    }
+}
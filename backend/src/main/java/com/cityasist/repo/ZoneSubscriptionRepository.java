@@ -0,0 +1,35 @@
+package com.cityasist.repo;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public class ZoneSubscriptionRepository {
+    public record Subscription(UUID userId, String zone) {}
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ZoneSubscriptionRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public List<Subscription> findAll() {
+        return jdbcTemplate.query("SELECT user_id, zone FROM user_zone_subscriptions",
+                (rs, n) -> new Subscription(rs.getObject("user_id", UUID.class), rs.getString("zone")));
+    }
+
+    public void replace(UUID userId, Collection<String> zones) {
+        jdbcTemplate.update("DELETE FROM user_zone_subscriptions WHERE user_id = ?", userId);
+        List<String> rows = new ArrayList<>(zones);
+        jdbcTemplate.batchUpdate("INSERT INTO user_zone_subscriptions (user_id, zone) VALUES (?, ?)", rows, rows.size(),
+                (ps, zone) -> {
+                    ps.setObject(1, userId);
+                    ps.setString(2, zone);
+                });
+    }
+}
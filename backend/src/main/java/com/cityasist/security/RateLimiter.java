@@ -0,0 +1,108 @@
+package com.cityasist.security;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-client token buckets for the API, kept as GCRA state: a single "theoretical arrival time" per
+ * client that a request pushes forward by its cost, admitted while it stays within the burst allowance.
+ * That is one CAS on an AtomicLong per request, no locks and no allocation once a client is known.
+ * Buckets live in striped maps; a stripe that outgrows its share drops idle clients, whose buckets
+ * have refilled and are therefore indistinguishable from new ones. If none are idle, the one closest
+ * to a full bucket makes room, so a full stripe never resets clients that are being limited.
+ * Clients are keyed by the user's UUID or the remote address string; the two types never compare equal.
+ */
+@Component
+public class RateLimiter {
+    private static final int STRIPES = 64;
+
+    private record CostClass(String method, String pattern, int cost) {}
+
+    private final boolean enabled;
+    private final long intervalNanos;
+    private final long burstNanos;
+    private final int maxPerStripe;
+    private final int writeCost;
+    private final List<CostClass> costClasses = new ArrayList<>();
+    private final AntPathMatcher matcher = new AntPathMatcher();
+    private final List<ConcurrentHashMap<Object, AtomicLong>> stripes = new ArrayList<>(STRIPES);
+
+    public RateLimiter(@Value("${app.rateLimit.enabled:false}") boolean enabled,
+                       @Value("${app.rateLimit.perSecond:20}") double perSecond,
+                       @Value("${app.rateLimit.burst:60}") int burst,
+                       @Value("${app.rateLimit.writeCost:2}") int writeCost,
+                       @Value("${app.rateLimit.costs:}") String costs,
+                       @Value("${app.rateLimit.maxClients:100000}") int maxClients) {
+        this.enabled = enabled;
+        this.intervalNanos = Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / Math.max(0.001, perSecond)));
+        this.burstNanos = intervalNanos * Math.max(1, burst);
+        this.maxPerStripe = Math.max(1, maxClients / STRIPES);
+        this.writeCost = Math.max(1, writeCost);
+        // "GET /api/v1/incidents/export=20,/api/v1/ai/**=5": optional method, Ant pattern, cost
+        for (String part : costs.split(",")) {
+            String[] kv = part.split("=", 2);
+            if (kv.length != 2 || kv[0].isBlank()) continue;
+            String[] route = kv[0].trim().split("\\s+", 2);
+            String method = route.length == 2 ? route[0].toUpperCase(Locale.ROOT) : null;
+            costClasses.add(new CostClass(method, route[route.length - 1], Math.max(1, Integer.parseInt(kv[1].trim()))));
+        }
+        for (int i = 0; i < STRIPES; i++) stripes.add(new ConcurrentHashMap<>());
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public int cost(String method, String path) {
+        for (CostClass c : costClasses) {
+            if ((c.method() == null || c.method().equals(method)) && matcher.match(c.pattern(), path)) return c.cost();
+        }
+        return "GET".equals(method) || "HEAD".equals(method) ? 1 : writeCost;
+    }
+
+    /** Takes {@code cost} tokens from the client's bucket; returns 0 when admitted, else nanos until it would be. */
+    public long tryAcquire(Object client, int cost) {
+        long now = System.nanoTime();
+        AtomicLong tat = bucket(client, now);
+        long increment = Math.min(intervalNanos * cost, burstNanos);
+        while (true) {
+            long current = tat.get();
+            long next = Math.max(current, now) + increment;
+            long over = next - now - burstNanos;
+            if (over > 0) return over;
+            if (tat.compareAndSet(current, next)) return 0;
+        }
+    }
+
+    private AtomicLong bucket(Object client, long now) {
+        ConcurrentHashMap<Object, AtomicLong> stripe = stripes.get((client.hashCode() & 0x7fffffff) % STRIPES);
+        AtomicLong tat = stripe.get(client);
+        if (tat != null) return tat;
+        if (stripe.size() >= maxPerStripe) {
+            stripe.values().removeIf(t -> t.get() <= now);
+            if (stripe.size() >= maxPerStripe) evictNearestRefill(stripe);
+        }
+        return stripe.computeIfAbsent(client, c -> new AtomicLong(now));
+    }
+
+    private static void evictNearestRefill(ConcurrentHashMap<Object, AtomicLong> stripe) {
+        Object nearest = null;
+        long earliest = Long.MAX_VALUE;
+        for (var e : stripe.entrySet()) {
+            long t = e.getValue().get();
+            if (t < earliest) {
+                earliest = t;
+                nearest = e.getKey();
+            }
+        }
+        if (nearest != null) stripe.remove(nearest);
+    }
+}
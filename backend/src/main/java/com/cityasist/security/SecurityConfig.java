@@ -3,6 +3,7 @@ package com.cityasist.security;
 import com.cityasist.domain.Role;
 import com.cityasist.service.JwtService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
@@ -23,6 +24,7 @@ import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 import org.springframework.web.filter.OncePerRequestFilter;
 
+import jakarta.servlet.DispatcherType;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -37,6 +39,9 @@ public class SecurityConfig {
     @Autowired
     private JwtService jwtService;
 
+    @Autowired
+    private RateLimiter rateLimiter;
+
     @Bean
     public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
 
@@ -46,6 +51,8 @@ public class SecurityConfig {
             .sessionManagement(sm -> sm.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
             .authorizeHttpRequests(auth -> auth
 
+                // Async re-dispatch of an already authorized request (e.g. the alert stream completing)
+                .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                 .requestMatchers("/v3/api-docs/**", "/swagger-ui.html", "/swagger-ui/**").permitAll()
                 .requestMatchers(HttpMethod.OPTIONS, "/**").permitAll()
 
@@ -64,7 +71,8 @@ public class SecurityConfig {
 
                 .anyRequest().authenticated()
             )
-            .addFilterBefore(jwtAuthFilter(), UsernamePasswordAuthenticationFilter.class);
+            .addFilterBefore(jwtAuthFilter(), UsernamePasswordAuthenticationFilter.class)
+            .addFilterAfter(rateLimitFilter(), UsernamePasswordAuthenticationFilter.class);
 
         return http.build();
     }
@@ -117,9 +125,46 @@ public class SecurityConfig {
         };
     }
 
+    // Runs after the JWT filter so authenticated calls are limited per user; anonymous ones per client IP
+    @Bean
+    public OncePerRequestFilter rateLimitFilter() {
+        return new OncePerRequestFilter() {
+            @Override
+            protected boolean shouldNotFilter(HttpServletRequest request) {
+                return !rateLimiter.isEnabled() || HttpMethod.OPTIONS.matches(request.getMethod());
+            }
+
+            @Override
+            protected void doFilterInternal(
+                    HttpServletRequest request,
+                    HttpServletResponse response,
+                    FilterChain filterChain
+            ) throws ServletException, IOException {
+
+                var auth = SecurityContextHolder.getContext().getAuthentication();
+                Object client = auth != null && auth.getPrincipal() instanceof java.util.UUID userId
+                        ? userId
+                        : request.getRemoteAddr();
+                int cost = rateLimiter.cost(request.getMethod(), request.getRequestURI());
+                long waitNanos = rateLimiter.tryAcquire(client, cost);
+
+                if (waitNanos > 0) {
+                    long retryAfter = Math.max(1, java.util.concurrent.TimeUnit.NANOSECONDS.toSeconds(waitNanos) + 1);
+                    response.setStatus(429);
+                    response.setHeader("Retry-After", String.valueOf(retryAfter));
+                    response.setContentType("application/json");
+                    response.getWriter().write("{\"error\":\"Too many requests\"}");
+                    return;
+                }
+
+                filterChain.doFilter(request, response);
+            }
+        };
+    }
+
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(@Value("${app.security.bcryptStrength:10}") int strength) {
+        return new BCryptPasswordEncoder(strength);
     }
 
     @Bean
@@ -1,77 +1,368 @@
 package com.cityasist.service;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestClientException;
 import org.springframework.web.client.RestTemplate;
 
+import java.net.http.HttpClient;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 
 @Service
 public class AiGatewayService {
     private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(AiGatewayService.class);
-    private final RestTemplate restTemplate = new RestTemplate();
+    private final RestTemplate restTemplate;
     private final String aiBaseUrl;
+    private final CircuitBreaker breaker;
+    private final MeterRegistry meterRegistry;
+    private final Counter shortCircuited;
+    private final PredictionCache cache;
+    private final int maxBatchRows;
+    private final LocalModelRegistry models;
+    private final AqiEngine aqiEngine;
+    private volatile List<Map<String, Object>> remoteCatalogue = List.of();
+    private final long defaultBudgetMs;
+    private final ThreadPoolExecutor hedgePool;
+    private final ExecutorService httpExecutor;
 
-    public AiGatewayService(@Value("${app.ai.baseUrl:http://localhost:8000}") String aiBaseUrl) {
+    public AiGatewayService(@Value("${app.ai.baseUrl:http://localhost:8000}") String aiBaseUrl,
+                            @Value("${app.ai.connectTimeoutMs:500}") long connectTimeoutMs,
+                            @Value("${app.ai.timeoutMs:1500}") long timeoutMs,
+                            @Value("${app.ai.breaker.failureThreshold:5}") int failureThreshold,
+                            @Value("${app.ai.breaker.openSeconds:30}") long openSeconds,
+                            @Value("${app.ai.batch.maxRows:5000}") int maxBatchRows,
+                            @Value("${app.ai.hedge.enabled:false}") boolean hedgeEnabled,
+                            @Value("${app.ai.hedge.budgetMs:200}") long hedgeBudgetMs,
+                            @Value("${app.ai.hedge.threads:16}") int hedgeThreads,
+                            MeterRegistry meterRegistry,
+                            PredictionCache cache,
+                            LocalModelRegistry models,
+                            AqiEngine aqiEngine) {
         this.aiBaseUrl = aiBaseUrl;
+        // The JDK client pools keep-alive connections per host; the request factory's read timeout is
+        // the deadline for the whole exchange after connecting.
+        AtomicInteger httpThreads = new AtomicInteger();
+        this.httpExecutor = Executors.newCachedThreadPool(r -> {
+            Thread t = new Thread(r, "ai-http-" + httpThreads.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        HttpClient httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+                .executor(httpExecutor)
+                .build();
+        JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(httpClient);
+        requestFactory.setReadTimeout(Duration.ofMillis(timeoutMs));
+        this.restTemplate = new RestTemplate(requestFactory);
+        this.breaker = new CircuitBreaker(failureThreshold, Duration.ofSeconds(openSeconds));
+        this.meterRegistry = meterRegistry;
+        this.cache = cache;
+        this.maxBatchRows = Math.max(1, maxBatchRows);
+        this.models = models;
+        this.aqiEngine = aqiEngine;
+        this.defaultBudgetMs = hedgeEnabled ? Math.max(0, hedgeBudgetMs) : -1;
+        // No queue: a hedge that can't start right away would only burn the budget, so it is skipped
+        AtomicInteger hedgeThreadCount = new AtomicInteger();
+        this.hedgePool = new ThreadPoolExecutor(0, Math.max(1, hedgeThreads), 60, TimeUnit.SECONDS,
+                new SynchronousQueue<>(), r -> {
+                    Thread t = new Thread(r, "ai-hedge-" + hedgeThreadCount.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+        this.shortCircuited = Counter.builder("ai.remote.short_circuited")
+                .description("Remote AI calls skipped because the circuit breaker was open")
+                .register(meterRegistry);
+        Gauge.builder("ai.remote.breaker.state", breaker, b -> b.state().ordinal())
+                .description("AI gateway circuit breaker state: 0 closed, 1 open, 2 half-open")
+                .register(meterRegistry);
+    }
+
+    public CircuitBreaker.State breakerState() {
+        return breaker.state();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        hedgePool.shutdownNow();
+        httpExecutor.shutdownNow();
     }
 
     public Map<String, Object> predictFlood(Map<String, Object> features) {
-        // If a specific local model is requested, use it directly
+        return predictFlood(features, null);
+    }
+
+    /**
+     * Predicts flood risk; the result's "source" says whether the remote or a local model answered. With a
+     * latency budget (or hedging enabled by default) the remote call and the local model run side by side
+     * and the remote answer is used only if it arrives within the budget; otherwise it is cancelled.
+     */
+    public Map<String, Object> predictFlood(Map<String, Object> features, Long budgetMs) {
+        long budget = budgetMs != null ? Math.max(0, budgetMs) : defaultBudgetMs;
         String sel = getString(features, "_model");
-        if (sel != null && !sel.isBlank()) {
-            String modelName = sel.split(":" ,2)[0].trim().toLowerCase();
-            switch (modelName) {
-                case "flood-heuristic":
-                    return heuristicFloodPrediction(features);
-                case "flood-logistic":
-                    return heuristicFloodPredictionLogistic(features);
-                default:
-                    // unknown local model; try remote below
-                    break;
-            }
+        String model = (sel != null && !sel.isBlank() ? "flood:" + sel.trim().toLowerCase() : "flood") + "@" + models.generation();
+        // A hedged call answers within its own budget, so it never waits on (or hands its local answer to)
+        // another caller's computation. Only remote answers are cached, and those serve every caller alike.
+        if (budget >= 0 && selectedLocal(features) == null) {
+            return cache.getUnshared(model, features, () -> hedgedFlood(features, budget), AiGatewayService::isRemote);
         }
-        // Try external service first
+        if (selectedLocal(features) != null) return cache.get(model, features, () -> computeFlood(features));
+        // The fallback answer only stands in while the remote is down; caching it would hide the remote
+        // answer for a whole TTL after it recovers
+        return cache.get(model, features, () -> computeFlood(features), AiGatewayService::isRemote);
+    }
+
+    private static boolean isRemote(Map<String, Object> out) {
+        return "remote".equals(out.get("source"));
+    }
+
+    private Map<String, Object> computeFlood(Map<String, Object> features) {
+        // If a specific local model is requested, use it directly
+        FloodModel local = selectedLocal(features);
+        if (local != null) {
+            return localFloodPrediction(local, features);
+        }
+        // Try external service first, unless the breaker says it is down
+        Map<String, Object> body = remoteFlood(features);
+        if (body != null) {
+            return body;
+        }
+        // Fallback: local prediction based on provided features
+        return localFloodPrediction(models.fallback(), features);
+    }
+
+    private Map<String, Object> hedgedFlood(Map<String, Object> features, long budgetMs) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(budgetMs);
+        FloodModel local = selectedLocal(features);
+        if (local != null) {
+            return localFloodPrediction(local, features);
+        }
+        Future<Map<String, Object>> remoteCall;
         try {
-            log.info("Calling AI predict flood at {}", aiBaseUrl);
+            remoteCall = hedgePool.submit(() -> remoteFlood(features));
+        } catch (RejectedExecutionException e) {
+            remoteCall = null;
+        }
+        // The local model takes microseconds, so it simply runs on this thread while the remote call is out
+        Map<String, Object> localOut = localFloodPrediction(models.fallback(), features);
+        if (remoteCall != null) {
+            try {
+                Map<String, Object> remoteOut = remoteCall.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                if (remoteOut != null) {
+                    hedgeResult("remote");
+                    return remoteOut;
+                }
+            } catch (TimeoutException e) {
+                remoteCall.cancel(true);
+            } catch (InterruptedException e) {
+                remoteCall.cancel(true);
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                log.warn("Hedged AI call failed: {}", e.getCause() != null ? e.getCause().getMessage() : e.getMessage());
+            }
+        }
+        hedgeResult("local");
+        return localOut;
+    }
+
+    private void hedgeResult(String winner) {
+        meterRegistry.counter("ai.hedge.results", "winner", winner).increment();
+    }
+
+    private FloodModel selectedLocal(Map<String, Object> features) {
+        String sel = getString(features, "_model");
+        return sel != null ? models.get(sel.split(":", 2)[0]) : null;
+    }
+
+    // null when the service is unavailable or answered with nothing
+    private Map<String, Object> remoteFlood(Map<String, Object> features) {
+        Map body = remote("predict_flood", () -> {
+            log.debug("Calling AI predict flood at {}", aiBaseUrl);
             ResponseEntity<Map> resp = restTemplate.postForEntity(aiBaseUrl + "/predict/flood", features, Map.class);
-            Map body = resp.getBody();
-            if (body != null && !body.isEmpty()) {
-                return body;
+            return resp.getBody();
+        });
+        if (body == null || body.isEmpty()) return null;
+        //noinspection unchecked
+        Map<String, Object> out = new HashMap<>(body);
+        out.put("source", "remote");
+        return out;
+    }
+
+    /**
+     * Scores columnar features (one array per feature, absent arrays meaning "not measured"). The local
+     * models run in-process over the arrays; otherwise the whole batch goes to the remote service in one
+     * request, with the heuristic as fallback.
+     */
+    public Map<String, Object> predictFloodBatch(String model, double[] rainfall, double[] riverLevel,
+                                                 double[] soil, String[] zones) {
+        int n = batchSize(rainfall, riverLevel, soil, zones);
+        FloodModel local = model != null ? models.get(model.split(":", 2)[0]) : null;
+        if (local == null) {
+            Map<String, Object> body = new HashMap<>();
+            if (model != null && !model.isBlank()) body.put("_model", model);
+            if (rainfall != null) body.put("rainfall_mm", rainfall);
+            if (riverLevel != null) body.put("river_level_m", riverLevel);
+            if (soil != null) body.put("soil_moisture_percent", soil);
+            if (zones != null) body.put("zone", zones);
+            Map remoteOut = remote("predict_flood_batch", () -> {
+                log.debug("Calling AI predict flood batch at {} rows={}", aiBaseUrl, n);
+                ResponseEntity<Map> resp = restTemplate.postForEntity(aiBaseUrl + "/predict/flood/batch", body, Map.class);
+                return resp.getBody();
+            });
+            if (remoteOut != null && remoteOut.get("probability") instanceof List<?> p && p.size() == n) {
+                //noinspection unchecked
+                Map<String, Object> out = new LinkedHashMap<>(remoteOut);
+                out.put("source", "remote");
+                return out;
             }
-            log.warn("AI service returned empty response, falling back to heuristic");
-        } catch (RestClientException e) {
-            log.warn("AI service unavailable, using heuristic prediction: {}", e.getMessage());
+            local = models.fallback();
+        }
+        double[] r = column(rainfall, n), l = column(riverLevel, n), m = column(soil, n);
+        double[] probability = new double[n];
+        double[] confidence = new double[n];
+        String[] labels = new String[n];
+        local.score(r, l, m, zones, probability, confidence, labels);
+
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("model", local.name());
+        out.put("version", local.version());
+        out.put("source", "local");
+        out.put("count", n);
+        out.put("probability", probability);
+        out.put("label", labels);
+        out.put("confidence", confidence);
+        return out;
+    }
+
+    private int batchSize(double[] rainfall, double[] riverLevel, double[] soil, String[] zones) {
+        if (rainfall == null && riverLevel == null && soil == null) {
+            throw new IllegalArgumentException("At least one of rainfall_mm, river_level_m, soil_moisture_percent is required");
+        }
+        int n = rainfall != null ? rainfall.length : riverLevel != null ? riverLevel.length : soil.length;
+        if ((riverLevel != null && riverLevel.length != n) || (soil != null && soil.length != n)
+                || (zones != null && zones.length != n)) {
+            throw new IllegalArgumentException("Feature arrays must all have the same length");
         }
-        // Fallback: heuristic prediction based on provided features
-        return heuristicFloodPrediction(features);
+        if (n > maxBatchRows) throw new IllegalArgumentException("Batch too large (max " + maxBatchRows + " rows)");
+        return n;
+    }
+
+    private static double[] column(double[] values, int n) {
+        if (values != null) return values;
+        double[] missing = new double[n];
+        Arrays.fill(missing, Double.NaN);
+        return missing;
     }
 
+    /** Local models plus the last remote catalogue fetched by {@link #refreshCatalogue()}; no I/O. */
     public List<Map<String, Object>> listModels() {
-        List<Map<String, Object>> models = new ArrayList<>();
-        // Always include local models
-        models.add(Map.of("name", "flood-heuristic", "version", "1.0.0"));
-        models.add(Map.of("name", "flood-logistic", "version", "1.0.0"));
-        try {
-            log.info("Fetching AI models at {}", aiBaseUrl);
+        List<Map<String, Object>> out = new ArrayList<>();
+        for (FloodModel m : models.all()) {
+            out.add(Map.of("name", m.name(), "version", m.version()));
+        }
+        out.addAll(remoteCatalogue);
+        return out;
+    }
+
+    @Scheduled(fixedDelayString = "${app.ai.models.catalogueRefreshMs:60000}")
+    public void refreshCatalogue() {
+        List remote = remote("models", () -> {
+            log.debug("Fetching AI models at {}", aiBaseUrl);
             ResponseEntity<List> resp = restTemplate.getForEntity(aiBaseUrl + "/models", List.class);
-            List remote = resp.getBody();
-            if (remote != null) {
-                //noinspection unchecked
-                models.addAll(remote);
+            return resp.getBody();
+        });
+        // keep the previous catalogue while the service is unreachable
+        if (remote != null) {
+            //noinspection unchecked
+            remoteCatalogue = List.copyOf(remote);
+        }
+    }
+
+    // Runs a remote call through the breaker and records its latency; null means "use the local model".
+    // Every outcome reports back to the breaker, or a half-open trial would hold its slot forever.
+    <T> T remote(String endpoint, Supplier<T> call) {
+        if (!breaker.tryAcquire()) {
+            shortCircuited.increment();
+            return null;
+        }
+        long start = System.nanoTime();
+        String outcome = "error";
+        try {
+            T result = call.get();
+            breaker.onSuccess();
+            outcome = "success";
+            return result;
+        } catch (RuntimeException e) {
+            if (Thread.currentThread().isInterrupted()) {
+                // cancelled by a hedged caller that already answered locally
+                breaker.onCancelled();
+                outcome = "cancelled";
+                return null;
             }
-        } catch (RestClientException e) {
-            log.warn("AI service unavailable, only heuristic model listed: {}", e.getMessage());
+            breaker.onFailure();
+            log.warn("AI service call {} failed, using local model: {}", endpoint, e.getMessage());
+            return null;
+        } finally {
+            Timer.builder("ai.remote.requests")
+                    .description("Remote AI service calls")
+                    .tag("endpoint", endpoint)
+                    .tag("outcome", outcome)
+                    .register(meterRegistry)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
         }
-        return models;
     }
 
     public Map<String, Object> predictAqi(Map<String, Object> features) {
+        Map<String, Object> f = withLiveParticulates(features);
+        return cache.get("aqi", f, () -> computeAqi(f));
+    }
+
+    // Fills in pm25/pm10 from the sensor's (or zone's) current NowCast when the caller didn't supply them
+    private Map<String, Object> withLiveParticulates(Map<String, Object> features) {
+        if (!Double.isNaN(getDouble(features, "pm25")) || !Double.isNaN(getDouble(features, "pm10"))) return features;
+        String sensorId = getString(features, "sensor_id");
+        Double pm25 = null, pm10 = null;
+        if (sensorId != null) {
+            try {
+                var s = aqiEngine.sensor(UUID.fromString(sensorId.trim())).orElse(null);
+                if (s != null) { pm25 = s.pm25NowCast(); pm10 = s.pm10NowCast(); }
+            } catch (IllegalArgumentException ignored) {}
+        } else {
+            var z = aqiEngine.zone(getString(features, "zone")).orElse(null);
+            if (z != null) { pm25 = z.pm25NowCast(); pm10 = z.pm10NowCast(); }
+        }
+        if (pm25 == null && pm10 == null) return features;
+        Map<String, Object> out = new HashMap<>(features);
+        if (pm25 != null) out.put("pm25", pm25);
+        if (pm10 != null) out.put("pm10", pm10);
+        return out;
+    }
+
+    private Map<String, Object> computeAqi(Map<String, Object> features) {
         // Heuristic AQI prediction using PM2.5 / PM10 (ug/m3) -> category and score [0,1]
         double pm25 = getDouble(features, "pm25");
         double pm10 = getDouble(features, "pm10");
@@ -93,94 +384,19 @@ public class AiGatewayService {
         return out;
     }
 
-    private Map<String, Object> heuristicFloodPrediction(Map<String, Object> features) {
+    private Map<String, Object> localFloodPrediction(FloodModel model, Map<String, Object> features) {
         double rainfall = getDouble(features, "rainfall_mm");            // e.g., 0..200+
         double riverLevel = getDouble(features, "river_level_m");        // e.g., 0..10+
         double soil = getDouble(features, "soil_moisture_percent");      // e.g., 0..100
-        String zone = getString(features, "zone");
-
-        int provided = 0;
-        if (!Double.isNaN(rainfall)) provided++;
-        if (!Double.isNaN(riverLevel)) provided++;
-        if (!Double.isNaN(soil)) provided++;
-
-        // Normalize and weight
-        double rainComp = clamp01(rainfall / 200.0);     // 200mm ~ extreme
-        double riverComp = clamp01(riverLevel / 8.0);    // 8m ~ high
-        double soilComp = clamp01(soil / 100.0);         // 100% saturated
-
-        double weightRain = 0.4, weightRiver = 0.45, weightSoil = 0.15;
-        double prob = 0.0;
-        if (provided > 0) {
-            prob = weightRain * (Double.isNaN(rainComp) ? 0 : rainComp)
-                 + weightRiver * (Double.isNaN(riverComp) ? 0 : riverComp)
-                 + weightSoil * (Double.isNaN(soilComp) ? 0 : soilComp);
-            // Zone adjustment
-            if (zone != null && !zone.isBlank()) {
-                String z = zone.toLowerCase();
-                if (z.contains("lowland") || z.contains("river") || z.contains("coast") || z.matches(".*zone\s*[ab].*")) {
-                    prob = clamp01(prob + 0.1);
-                }
-            }
-        } else {
-            // No numeric features provided
-            prob = Double.NaN;
-        }
-
-        String label;
-        if (Double.isNaN(prob)) label = "UNKNOWN";
-        else if (prob >= 0.8) label = "CRITICAL";
-        else if (prob >= 0.6) label = "HIGH";
-        else if (prob >= 0.4) label = "MEDIUM";
-        else if (prob >= 0.2) label = "LOW";
-        else label = "VERY_LOW";
-
-        double confidence = provided / 3.0; // simple proxy: more features => higher confidence
+        double prob = model.score(rainfall, riverLevel, soil, model.isProneZone(getString(features, "zone")));
 
         Map<String, Object> out = new HashMap<>();
         if (!Double.isNaN(prob)) out.put("probability", prob);
-        out.put("label", label);
-        out.put("confidence", confidence);
-        out.put("model", "flood-heuristic");
-        out.put("version", "1.0.0");
-        return out;
-    }
-
-    private Map<String, Object> heuristicFloodPredictionLogistic(Map<String, Object> features) {
-        double rainfall = getDouble(features, "rainfall_mm");
-        double riverLevel = getDouble(features, "river_level_m");
-        double soil = getDouble(features, "soil_moisture_percent");
-        String zone = getString(features, "zone");
-
-        double rainComp = clamp01(rainfall / 150.0);
-        double riverComp = clamp01(riverLevel / 6.0);
-        double soilComp = clamp01(soil / 100.0);
-
-        double zoneBoost = 0.0;
-        if (zone != null) {
-            String z = zone.toLowerCase();
-            if (z.contains("lowland") || z.contains("river") || z.contains("coast") || z.matches(".*zone\s*[ab].*")) {
-                zoneBoost = 0.5;
-            }
-        }
-        // logistic model
-        double z = 1.2 * rainComp + 1.6 * riverComp + 0.6 * soilComp + zoneBoost - 1.5;
-        double prob = 1.0 / (1.0 + Math.exp(-z));
-        prob = clamp01(prob);
-
-        String label;
-        if (prob >= 0.8) label = "CRITICAL";
-        else if (prob >= 0.6) label = "HIGH";
-        else if (prob >= 0.4) label = "MEDIUM";
-        else if (prob >= 0.2) label = "LOW";
-        else label = "VERY_LOW";
-
-        Map<String, Object> out = new HashMap<>();
-        out.put("probability", prob);
-        out.put("label", label);
-        out.put("confidence", 0.7); // static proxy for demo
-        out.put("model", "flood-logistic");
-        out.put("version", "1.0.0");
+        out.put("label", model.label(prob));
+        out.put("confidence", model.confidence(rainfall, riverLevel, soil));
+        out.put("model", model.name());
+        out.put("version", model.version());
+        out.put("source", "local");
         return out;
     }
 
@@ -0,0 +1,151 @@
+package com.cityasist.service;
+
+import com.cityasist.domain.Alert;
+import com.cityasist.repo.AlertRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * In-memory index of the most recent alerts, ordered by seq. Every alert with a seq above the floor is
+ * held here, so per-user unread filtering can walk this index instead of querying the database.
+ * A second, inverted index by zone lets a user subscribed to a few zones walk only those zones' alerts
+ * plus the citywide ones. Writers are serialized; readers iterate the skip lists without locking.
+ */
+@Component
+public class AlertFeed {
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(AlertFeed.class);
+
+    private final AlertRepository alertRepository;
+    private final int capacity;
+    private final ConcurrentSkipListMap<Long, Alert> bySeq = new ConcurrentSkipListMap<>();
+    private final Map<UUID, Long> seqById = new ConcurrentHashMap<>();
+    // Zone key -> that zone's alerts; alerts without a zone live under CITYWIDE
+    private final Map<String, ConcurrentSkipListMap<Long, Alert>> byZone = new ConcurrentHashMap<>();
+    private static final String CITYWIDE = "";
+    // Alerts with seq > floorSeq are all present; nothing is covered until the initial load
+    private volatile long floorSeq = Long.MAX_VALUE;
+
+    public AlertFeed(AlertRepository alertRepository,
+                     @Value("${app.alerts.feed.capacity:5000}") int capacity) {
+        this.alertRepository = alertRepository;
+        this.capacity = Math.max(1, capacity);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void load() {
+        List<Alert> recent = alertRepository.findAllByOrderBySeqDesc(PageRequest.of(0, capacity));
+        recent.forEach(this::index);
+        floorSeq = recent.size() < capacity ? 0 : recent.get(recent.size() - 1).getSeq() - 1;
+        trim();
+        log.info("Alert feed loaded count={} floorSeq={}", bySeq.size(), floorSeq);
+    }
+
+    public synchronized void add(Alert alert) {
+        if (alert.getSeq() == null) return;
+        index(alert);
+        trim();
+    }
+
+    /** True when every alert with a seq above {@code watermark} is in the feed. */
+    public boolean coversAfter(long watermark) {
+        return watermark >= floorSeq;
+    }
+
+    /** Alerts with a seq above {@code seq}, oldest first. */
+    public Iterable<Alert> since(long seq) {
+        return bySeq.tailMap(seq, false).values();
+    }
+
+    public Iterable<Alert> newestFirst() {
+        return bySeq.descendingMap().values();
+    }
+
+    /** Newest-first alerts for the given zone keys plus citywide alerts; an empty set means every zone. */
+    public Iterable<Alert> newestFirst(Set<String> zones) {
+        if (zones.isEmpty()) return newestFirst();
+        return () -> {
+            List<Iterator<Alert>> sources = new ArrayList<>(zones.size() + 1);
+            addSource(sources, CITYWIDE);
+            zones.forEach(z -> addSource(sources, z));
+            return new NewestFirstMerge(sources);
+        };
+    }
+
+    public Alert find(UUID alertId) {
+        Long seq = seqById.get(alertId);
+        return seq != null ? bySeq.get(seq) : null;
+    }
+
+    private void index(Alert alert) {
+        bySeq.put(alert.getSeq(), alert);
+        seqById.put(alert.getId(), alert.getSeq());
+        byZone.computeIfAbsent(zoneKey(alert), z -> new ConcurrentSkipListMap<>()).put(alert.getSeq(), alert);
+    }
+
+    private static String zoneKey(Alert alert) {
+        String key = ZoneSubscriptions.key(alert.getZone());
+        return key != null ? key : CITYWIDE;
+    }
+
+    private void addSource(List<Iterator<Alert>> sources, String zone) {
+        var alerts = byZone.get(zone);
+        if (alerts != null) sources.add(alerts.descendingMap().values().iterator());
+    }
+
+    private void trim() {
+        if (floorSeq == Long.MAX_VALUE) return;
+        while (bySeq.size() > capacity) {
+            var evicted = bySeq.pollFirstEntry();
+            seqById.remove(evicted.getValue().getId());
+            byZone.computeIfPresent(zoneKey(evicted.getValue()), (z, alerts) -> {
+                alerts.remove(evicted.getKey());
+                return alerts.isEmpty() ? null : alerts;
+            });
+            floorSeq = Math.max(floorSeq, evicted.getKey());
+        }
+    }
+
+    // k-way merge of per-zone newest-first iterators
+    private static final class NewestFirstMerge implements Iterator<Alert> {
+        private record Head(Alert alert, Iterator<Alert> rest) {}
+
+        private final PriorityQueue<Head> heads =
+                new PriorityQueue<>(Comparator.comparing((Head h) -> h.alert().getSeq()).reversed());
+
+        NewestFirstMerge(List<Iterator<Alert>> sources) {
+            sources.forEach(this::advance);
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !heads.isEmpty();
+        }
+
+        @Override
+        public Alert next() {
+            Head head = heads.poll();
+            if (head == null) throw new NoSuchElementException();
+            advance(head.rest());
+            return head.alert();
+        }
+
+        private void advance(Iterator<Alert> source) {
+            if (source.hasNext()) heads.add(new Head(source.next(), source));
+        }
+    }
+}
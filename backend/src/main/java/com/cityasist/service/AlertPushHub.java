@@ -0,0 +1,288 @@
+package com.cityasist.service;
+
+import com.cityasist.domain.Alert;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Server-sent event fan-out for new alerts.
+ *
+ * An alert is serialized once per publish and the same frame is appended to the bounded queue of every
+ * connection it is relevant to; a small shared writer pool drains the queues, so a slow client never
+ * delays the publisher or other clients. A connection whose queue overflows is closed. The client then
+ * reconnects with Last-Event-ID (the alert seq) and the missed alerts are replayed from the in-memory
+ * alert feed. When the gap reaches past the feed or would not fit the buffer, a single "resync" event
+ * tells the client to reload the list instead.
+ *
+ * A zoned alert is only offered to the connections of that zone's subscribers plus those of users
+ * without subscriptions (who get every zone); citywide alerts go to every connection.
+ */
+@Component
+public class AlertPushHub {
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(AlertPushHub.class);
+    private static final Set<ResponseBodyEmitter.DataWithMediaType> HEARTBEAT = SseEmitter.event().comment("ping").build();
+    private static final Set<ResponseBodyEmitter.DataWithMediaType> RESYNC = SseEmitter.event().name("resync").data("{}").build();
+    // A publish that races a replay lands within moments of connecting; later ones can't be replays
+    private static final long REPLAY_WINDOW_NANOS = TimeUnit.SECONDS.toNanos(5);
+
+    private final AlertFeed feed;
+    private final ZoneSubscriptions subscriptions;
+    private final ObjectMapper objectMapper;
+    private final int bufferSize;
+    private final long timeoutMs;
+    private final Set<Connection> connections = ConcurrentHashMap.newKeySet();
+    private final Map<UUID, Set<Connection>> byUser = new ConcurrentHashMap<>();
+    // Connected users without zone subscriptions; kept in step with byUser under its per-key lock
+    private final Set<UUID> allZoneUsers = ConcurrentHashMap.newKeySet();
+    private final ExecutorService writers;
+    private final ScheduledExecutorService heartbeat;
+
+    public AlertPushHub(AlertFeed feed,
+                        ZoneSubscriptions subscriptions,
+                        ObjectMapper objectMapper,
+                        @Value("${app.alerts.push.bufferSize:64}") int bufferSize,
+                        @Value("${app.alerts.push.timeoutMs:1800000}") long timeoutMs,
+                        @Value("${app.alerts.push.writerThreads:4}") int writerThreads,
+                        @Value("${app.alerts.push.heartbeatSeconds:25}") long heartbeatSeconds) {
+        this.feed = feed;
+        this.subscriptions = subscriptions;
+        this.objectMapper = objectMapper;
+        this.bufferSize = Math.max(2, bufferSize);
+        this.timeoutMs = timeoutMs;
+        AtomicInteger n = new AtomicInteger();
+        this.writers = Executors.newFixedThreadPool(Math.max(1, writerThreads), r -> {
+            Thread t = new Thread(r, "alert-push-" + n.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        this.heartbeat = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "alert-push-heartbeat");
+            t.setDaemon(true);
+            return t;
+        });
+        long period = Math.max(1, heartbeatSeconds);
+        heartbeat.scheduleAtFixedRate(this::beat, period, period, TimeUnit.SECONDS);
+    }
+
+    private void beat() {
+        long now = System.nanoTime();
+        for (Connection c : connections) {
+            if (now - c.connectedAtNanos > REPLAY_WINDOW_NANOS) {
+                synchronized (c) {
+                    c.replayed.clear();
+                }
+            }
+            enqueue(c, HEARTBEAT);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        heartbeat.shutdownNow();
+        writers.shutdownNow();
+        connections.forEach(c -> c.emitter.complete());
+        connections.clear();
+        byUser.clear();
+        allZoneUsers.clear();
+    }
+
+    public int connectionCount() {
+        return connections.size();
+    }
+
+    /** Opens a stream for the user, replaying alerts after {@code lastEventId} when the client reconnects. */
+    public SseEmitter connect(UUID userId, Long lastEventId) {
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        Connection c = new Connection(userId, emitter, bufferSize);
+        emitter.onCompletion(() -> remove(c));
+        emitter.onTimeout(() -> remove(c));
+        emitter.onError(e -> remove(c));
+        // Registering and replaying under the connection lock keeps a concurrent publish from slipping
+        // in between the two; replayed seqs are remembered so that an in-flight publish doesn't send them
+        // twice, and forgotten by the heartbeat once that window has passed.
+        synchronized (c) {
+            register(c);
+            if (lastEventId != null) replay(c, lastEventId);
+        }
+        schedule(c);
+        return emitter;
+    }
+
+    /** Re-files the user's connections after their zone subscriptions changed. */
+    public void onSubscriptionsChanged(UUID userId) {
+        byUser.computeIfPresent(userId, (u, userConnections) -> {
+            if (subscriptions.zonesOf(u).isEmpty()) allZoneUsers.add(u); else allZoneUsers.remove(u);
+            return userConnections;
+        });
+    }
+
+    public void publish(Alert alert) {
+        if (connections.isEmpty()) return;
+        Set<ResponseBodyEmitter.DataWithMediaType> frame = frame(alert);
+        if (frame == null) return;
+        int delivered = 0;
+        String zone = ZoneSubscriptions.key(alert.getZone());
+        if (zone == null) {
+            for (Connection c : connections) delivered += deliver(c, alert, frame);
+        } else {
+            for (UUID userId : subscriptions.subscribersOf(zone)) delivered += deliver(userId, alert, frame);
+            for (UUID userId : allZoneUsers) delivered += deliver(userId, alert, frame);
+        }
+        log.debug("Alert pushed seq={} connections={}", alert.getSeq(), delivered);
+    }
+
+    private int deliver(UUID userId, Alert alert, Set<ResponseBodyEmitter.DataWithMediaType> frame) {
+        Set<Connection> userConnections = byUser.get(userId);
+        if (userConnections == null) return 0;
+        int delivered = 0;
+        for (Connection c : userConnections) delivered += deliver(c, alert, frame);
+        return delivered;
+    }
+
+    private int deliver(Connection c, Alert alert, Set<ResponseBodyEmitter.DataWithMediaType> frame) {
+        // Also guards against a user briefly filed both ways while their subscriptions change
+        if (!subscriptions.isRelevant(c.userId, alert)) return 0;
+        synchronized (c) {
+            if (c.replayed.remove(alert.getSeq())) return 0;
+        }
+        enqueue(c, frame);
+        return 1;
+    }
+
+    private void register(Connection c) {
+        connections.add(c);
+        byUser.compute(c.userId, (u, userConnections) -> {
+            Set<Connection> set = userConnections != null ? userConnections : ConcurrentHashMap.newKeySet();
+            set.add(c);
+            if (subscriptions.zonesOf(u).isEmpty()) allZoneUsers.add(u);
+            return set;
+        });
+    }
+
+    private boolean remove(Connection c) {
+        if (!connections.remove(c)) return false;
+        byUser.computeIfPresent(c.userId, (u, userConnections) -> {
+            userConnections.remove(c);
+            if (!userConnections.isEmpty()) return userConnections;
+            allZoneUsers.remove(u);
+            return null;
+        });
+        return true;
+    }
+
+    private void replay(Connection c, long lastEventId) {
+        if (!feed.coversAfter(lastEventId)) {
+            c.queue.offer(RESYNC);
+            return;
+        }
+        List<Alert> missed = new ArrayList<>();
+        for (Alert a : feed.since(lastEventId)) {
+            if (!subscriptions.isRelevant(c.userId, a)) continue;
+            if (missed.size() >= bufferSize / 2) {
+                c.queue.offer(RESYNC);
+                return;
+            }
+            missed.add(a);
+        }
+        for (Alert a : missed) {
+            var frame = frame(a);
+            if (frame == null) continue;
+            c.replayed.add(a.getSeq());
+            c.queue.offer(frame);
+        }
+    }
+
+    private Set<ResponseBodyEmitter.DataWithMediaType> frame(Alert alert) {
+        try {
+            return SseEmitter.event()
+                    .id(String.valueOf(alert.getSeq()))
+                    .name("alert")
+                    .data(objectMapper.writeValueAsString(alert), MediaType.APPLICATION_JSON)
+                    .build();
+        } catch (JsonProcessingException e) {
+            log.warn("Could not serialize alert seq={}: {}", alert.getSeq(), e.getMessage());
+            return null;
+        }
+    }
+
+    private void enqueue(Connection c, Set<ResponseBodyEmitter.DataWithMediaType> frame) {
+        if (c.queue.offer(frame)) {
+            schedule(c);
+        } else {
+            log.debug("Evicting slow alert stream userId={}", c.userId);
+            close(c);
+        }
+    }
+
+    private void schedule(Connection c) {
+        if (!c.queue.isEmpty() && c.draining.compareAndSet(false, true)) {
+            try {
+                writers.execute(() -> drain(c));
+            } catch (Exception e) {
+                c.draining.set(false);
+            }
+        }
+    }
+
+    private void drain(Connection c) {
+        try {
+            Set<ResponseBodyEmitter.DataWithMediaType> frame;
+            while ((frame = c.queue.poll()) != null) c.emitter.send(frame);
+        } catch (Exception e) {
+            close(c);
+            return;
+        } finally {
+            c.draining.set(false);
+        }
+        // A frame may have arrived after the last poll but before draining was cleared
+        schedule(c);
+    }
+
+    private void close(Connection c) {
+        if (remove(c)) {
+            c.queue.clear();
+            try {
+                c.emitter.complete();
+            } catch (Exception ignored) {
+                // already completed or the client is gone
+            }
+        }
+    }
+
+    private static final class Connection {
+        final UUID userId;
+        final SseEmitter emitter;
+        final BlockingQueue<Set<ResponseBodyEmitter.DataWithMediaType>> queue;
+        final AtomicBoolean draining = new AtomicBoolean();
+        final long connectedAtNanos = System.nanoTime();
+        final Set<Long> replayed = new HashSet<>(); // guarded by this
+
+        Connection(UUID userId, SseEmitter emitter, int bufferSize) {
+            this.userId = userId;
+            this.emitter = emitter;
+            this.queue = new ArrayBlockingQueue<>(bufferSize);
+        }
+    }
+}
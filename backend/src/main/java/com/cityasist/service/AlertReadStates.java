@@ -0,0 +1,237 @@
+package com.cityasist.service;
+
+import com.cityasist.domain.Alert;
+import com.cityasist.repo.AlertReadStateRepository;
+import com.cityasist.repo.AlertRepository;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Per-user alert read state: a "read up to" watermark plus a Roaring bitmap of reads above it, where
+ * bit i stands for seq watermark + 1 + i. Seqs come from a database sequence and have gaps, so on every
+ * write the watermark is raised to just below the first alert in the user's zones that exists and is still
+ * unread (alerts in other zones never show up for the user and count as read; looked up
+ * in the feed, or the database when the feed doesn't reach back that far). A missing seq may also belong
+ * to an insert that has not committed yet, so gaps are only folded below an alert older than the grace
+ * period: every seq under it was handed out at least that long ago. The bitmap then only holds reads past
+ * a real unread alert or a recent gap. States are cached (LRU) and written through to alert_read_state.
+ */
+@Component
+public class AlertReadStates {
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(AlertReadStates.class);
+
+    private final AlertReadStateRepository repository;
+    private final AlertRepository alertRepository;
+    private final AlertFeed feed;
+    private final ZoneSubscriptions subscriptions;
+    private final Duration gapGrace;
+    private final Map<UUID, ReadState> cache;
+
+    public AlertReadStates(AlertReadStateRepository repository,
+                           AlertRepository alertRepository,
+                           AlertFeed feed,
+                           ZoneSubscriptions subscriptions,
+                           @Value("${app.alerts.readState.cacheSize:50000}") int cacheSize,
+                           @Value("${app.alerts.readState.gapGraceSeconds:120}") long gapGraceSeconds) {
+        this.repository = repository;
+        this.alertRepository = alertRepository;
+        this.feed = feed;
+        this.subscriptions = subscriptions;
+        this.gapGrace = Duration.ofSeconds(Math.max(0, gapGraceSeconds));
+        int max = Math.max(1, cacheSize);
+        this.cache = Collections.synchronizedMap(new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<UUID, ReadState> eldest) {
+                return size() > max;
+            }
+        });
+    }
+
+    public ReadState get(UUID userId) {
+        ReadState state = cache.get(userId);
+        if (state != null) return state;
+        ReadState loaded = load(userId);
+        ReadState raced = cache.putIfAbsent(userId, loaded);
+        return raced != null ? raced : loaded;
+    }
+
+    /** Marks the alerts read with a single write; returns the ones that were not read before. */
+    public List<Alert> markRead(UUID userId, Collection<Alert> alerts) {
+        ReadState state = get(userId);
+        synchronized (state) {
+            List<Alert> fresh = new ArrayList<>();
+            for (Alert a : alerts) {
+                if (state.add(a.getSeq())) fresh.add(a);
+            }
+            if (fresh.isEmpty()) return fresh;
+            foldGaps(userId, state);
+            repository.save(userId, state.watermark, state.serialize());
+            return fresh;
+        }
+    }
+
+    /**
+     * Marks every alert committed so far read. The watermark only moves up to the newest settled alert;
+     * the few newer ones are added to the bitmap by seq, so an insert still in flight below them stays
+     * unread once it commits. False when there was nothing left to mark.
+     */
+    public boolean markAllRead(UUID userId) {
+        ReadState state = get(userId);
+        synchronized (state) {
+            long watermark = state.watermark();
+            Instant cutoff = Instant.now().minus(gapGrace);
+            Long settled = alertRepository.findSettledSeq(watermark, Long.MAX_VALUE, cutoff);
+            long horizon = settled != null ? settled : watermark;
+            boolean changed = state.advanceTo(horizon);
+            if (feed.coversAfter(horizon)) {
+                for (Alert a : feed.since(horizon)) changed |= state.add(a.getSeq());
+            } else {
+                for (Long seq : alertRepository.findSeqsAfter(horizon)) changed |= state.add(seq);
+            }
+            if (!changed) return false;
+            foldGaps(userId, state);
+            repository.save(userId, state.watermark, state.serialize());
+            return true;
+        }
+    }
+
+    private ReadState load(UUID userId) {
+        var row = repository.find(userId);
+        if (row.isPresent()) return ReadState.of(row.get().watermark(), row.get().bits());
+        // First load for this user: fold any legacy alert_reads rows into a state row, then drop them.
+        // Insert-if-absent plus a re-read keeps two concurrent first loads from overwriting each other.
+        ReadState folded = new ReadState(0, new RoaringBitmap());
+        repository.findLegacyReadSeqs(userId).forEach(seq -> folded.add(seq));
+        foldGaps(userId, folded);
+        repository.insertIfAbsent(userId, folded.watermark, folded.serialize());
+        int dropped = repository.deleteLegacyReads(userId);
+        if (dropped > 0) log.debug("Folded legacy alert reads userId={} count={}", userId, dropped);
+        return repository.find(userId)
+                .map(s -> ReadState.of(s.watermark(), s.bits()))
+                .orElse(folded);
+    }
+
+    // Everything between the watermark and the first existing unread alert in the user's zones is either
+    // read, out of the user's zones or a missing seq. Missing seqs below a settled alert (one older than the
+    // grace period) were rolled back, so the watermark can move up to just below the first unread alert,
+    // but no further than the settled one.
+    private void foldGaps(UUID userId, ReadState state) {
+        long watermark = state.watermark();
+        long lastRead = state.lastRead();
+        if (lastRead <= watermark) return;
+        Instant cutoff = Instant.now().minus(gapGrace);
+        Long firstUnread = null;
+        Long settled = null;
+        if (feed.coversAfter(watermark)) {
+            for (Alert a : feed.since(watermark)) {
+                if (!a.getCreatedAt().isAfter(cutoff)) settled = a.getSeq();
+                if (a.getSeq() > lastRead) break;
+                if (!state.isRead(a.getSeq()) && subscriptions.isRelevant(userId, a)) {
+                    firstUnread = a.getSeq();
+                    break;
+                }
+            }
+        } else {
+            Set<String> zones = subscriptions.zonesOf(userId);
+            List<String> zoneKeys = new ArrayList<>(zones);
+            zoneKeys.add(""); // citywide
+            firstUnread = alertRepository.findFirstUnreadAfter(watermark, state.readAbove(), !zones.isEmpty(), zoneKeys);
+            settled = alertRepository.findSettledSeq(watermark, firstUnread != null ? firstUnread : Long.MAX_VALUE, cutoff);
+        }
+        if (settled == null) return;
+        long target = firstUnread != null ? Math.min(firstUnread - 1, lastRead) : lastRead;
+        state.advanceTo(Math.min(target, settled));
+    }
+
+    public static final class ReadState {
+        private long watermark;
+        private RoaringBitmap above;
+
+        private ReadState(long watermark, RoaringBitmap above) {
+            this.watermark = watermark;
+            this.above = above;
+        }
+
+        static ReadState of(long watermark, byte[] bits) {
+            RoaringBitmap bitmap = new RoaringBitmap();
+            if (bits != null && bits.length > 0) {
+                try {
+                    bitmap.deserialize(ByteBuffer.wrap(bits));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+            return new ReadState(watermark, bitmap);
+        }
+
+        public synchronized long watermark() {
+            return watermark;
+        }
+
+        public synchronized boolean isRead(long seq) {
+            if (seq <= watermark) return true;
+            long offset = seq - watermark - 1;
+            return offset <= Integer.MAX_VALUE && above.contains((int) offset);
+        }
+
+        /** Seqs read above the watermark, for the database fallback when the feed doesn't reach back far enough. */
+        public synchronized List<Long> readAbove() {
+            List<Long> seqs = new ArrayList<>(above.getCardinality());
+            long base = watermark + 1;
+            above.forEach((int offset) -> seqs.add(base + offset));
+            return seqs;
+        }
+
+        /** Highest seq read, or the watermark when nothing above it is. */
+        synchronized long lastRead() {
+            return above.isEmpty() ? watermark : watermark + 1 + Integer.toUnsignedLong(above.last());
+        }
+
+        synchronized boolean add(long seq) {
+            if (isRead(seq)) return false;
+            above.add(Math.toIntExact(seq - watermark - 1));
+            if (above.contains(0)) shift(above.nextAbsentValue(0));
+            return true;
+        }
+
+        synchronized boolean advanceTo(long seq) {
+            if (seq <= watermark) return false;
+            shift(seq - watermark);
+            if (above.contains(0)) shift(above.nextAbsentValue(0));
+            return true;
+        }
+
+        // Raises the watermark by n and drops the bits it now covers
+        private void shift(long n) {
+            if (n > 0xFFFFFFFFL) {
+                above = new RoaringBitmap();
+            } else {
+                above.remove(0L, n);
+                above = RoaringBitmap.addOffset(above, -n);
+            }
+            watermark += n;
+        }
+
+        synchronized byte[] serialize() {
+            above.runOptimize();
+            ByteBuffer buffer = ByteBuffer.allocate(above.serializedSizeInBytes());
+            above.serialize(buffer);
+            return buffer.array();
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package com.cityasist.service;
+
+import com.cityasist.domain.Alert;
+import com.cityasist.repo.AlertRepository;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+@Service
+public class AlertService {
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(AlertService.class);
+    private final AlertRepository alertRepository;
+    private final AlertFeed feed;
+    private final AlertReadStates readStates;
+    private final ZoneSubscriptions subscriptions;
+    private final AlertPushHub pushHub;
+    private final AlertUnreadCounters unreadCounters;
+    private final AlertStormGuard stormGuard;
+
+    public AlertService(AlertRepository alertRepository, AlertFeed feed, AlertReadStates readStates,
+                        ZoneSubscriptions subscriptions, AlertPushHub pushHub, AlertUnreadCounters unreadCounters,
+                        AlertStormGuard stormGuard) {
+        this.alertRepository = alertRepository;
+        this.feed = feed;
+        this.readStates = readStates;
+        this.subscriptions = subscriptions;
+        this.pushHub = pushHub;
+        this.unreadCounters = unreadCounters;
+        this.stormGuard = stormGuard;
+    }
+
+    /** Who raised an alert: API callers go through the storm guard, the system's own raisers dedupe themselves. */
+    public enum Origin { API, SYSTEM }
+
+    @Transactional
+    public Alert create(String type, String title, String message, String severity, String zone) {
+        return create(type, title, message, severity, zone, Origin.API);
+    }
+
+    @Transactional
+    public Alert create(String type, String title, String message, String severity, String zone, Origin origin) {
+        // Stored trimmed, so the storm guard's key and the repeat lookup see the same values
+        String t = type.trim();
+        String sev = severity.trim();
+        String z = zone == null || zone.isBlank() ? null : zone.trim();
+        if (origin == Origin.API && stormGuard.admit(t, z, sev) == AlertStormGuard.Decision.MERGE) {
+            Alert merged = mergeRepeat(t, z, sev);
+            if (merged != null) return merged;
+        }
+        Alert a = new Alert();
+        a.setType(t);
+        a.setTitle(title);
+        a.setMessage(message);
+        a.setSeverity(sev);
+        a.setZone(z);
+        Alert saved = alertRepository.saveAndFlush(a);
+        AfterCommit.run(() -> {
+            feed.add(saved);
+            unreadCounters.onCreated(saved);
+            pushHub.publish(saved);
+        });
+        log.info("Alert created id={} seq={} type={} severity={} zone={}", saved.getId(), saved.getSeq(), t, sev, z);
+        return saved;
+    }
+
+    // Folds a repeat into the latest alert for the key; no new row, fan-out or push
+    private Alert mergeRepeat(String type, String zone, String severity) {
+        Alert latest = alertRepository.findFirstByTypeIgnoreCaseAndZoneAndSeverityIgnoreCaseOrderBySeqDesc(type, zone, severity).orElse(null);
+        if (latest == null) return null;
+        Instant now = Instant.now();
+        alertRepository.recordRepeat(latest.getId(), now);
+        latest.setOccurrences(latest.getOccurrences() + 1);
+        latest.setLastSeenAt(now);
+        AfterCommit.run(() -> {
+            Alert cached = feed.find(latest.getId());
+            if (cached != null) {
+                cached.setOccurrences(latest.getOccurrences());
+                cached.setLastSeenAt(now);
+            }
+        });
+        log.debug("Alert repeat merged id={} type={} severity={} zone={} occurrences={}",
+                latest.getId(), type, severity, zone, latest.getOccurrences());
+        return latest;
+    }
+
+    /** Newest-first page of the alerts in the user's zones that they have not read yet. */
+    public Page<Alert> listUnread(UUID userId, int page, int size) {
+        AlertReadStates.ReadState state = readStates.get(userId);
+        Set<String> zones = subscriptions.zonesOf(userId);
+        long watermark = state.watermark();
+        PageRequest pageable = PageRequest.of(page, size);
+        if (!feed.coversAfter(watermark)) {
+            List<Long> readSeqs = new ArrayList<>(state.readAbove());
+            readSeqs.add(-1L); // NOT IN () is not valid SQL
+            List<String> zoneKeys = new ArrayList<>(zones);
+            zoneKeys.add(""); // citywide
+            return alertRepository.findUnreadAfter(watermark, readSeqs, !zones.isEmpty(), zoneKeys, pageable);
+        }
+        long skip = pageable.getOffset();
+        List<Alert> content = new ArrayList<>(size);
+        long total = 0;
+        for (Alert a : feed.newestFirst(zones)) {
+            if (a.getSeq() <= watermark) break;
+            if (state.isRead(a.getSeq())) continue;
+            if (total >= skip && content.size() < size) content.add(a);
+            total++;
+        }
+        return new PageImpl<>(content, pageable, total);
+    }
+
+    public long unreadCount(UUID userId) {
+        return unreadCounters.get(userId, () -> listUnread(userId, 0, 1).getTotalElements());
+    }
+
+    public void markRead(UUID userId, UUID alertId) {
+        Alert alert = feed.find(alertId);
+        if (alert == null) alert = alertRepository.findById(alertId).orElseThrow(() -> new RuntimeException("Alert not found"));
+        onRead(userId, readStates.markRead(userId, List.of(alert)));
+    }
+
+    /** Marks the given alerts read with one write; unknown ids are ignored. Returns how many were newly read. */
+    public int markRead(UUID userId, Collection<UUID> alertIds) {
+        List<Alert> alerts = new ArrayList<>(alertIds.size());
+        List<UUID> missing = new ArrayList<>();
+        for (UUID id : new LinkedHashSet<>(alertIds)) {
+            Alert a = feed.find(id);
+            if (a != null) alerts.add(a); else missing.add(id);
+        }
+        if (!missing.isEmpty()) alerts.addAll(alertRepository.findAllById(missing));
+        List<Alert> fresh = readStates.markRead(userId, alerts);
+        onRead(userId, fresh);
+        return fresh.size();
+    }
+
+    /** Marks every alert committed so far read; inserts still in flight stay unread. */
+    public void markAllRead(UUID userId) {
+        if (readStates.markAllRead(userId)) unreadCounters.invalidate(userId);
+    }
+
+    private void onRead(UUID userId, List<Alert> fresh) {
+        long relevant = fresh.stream().filter(a -> subscriptions.isRelevant(userId, a)).count();
+        if (relevant > 0) unreadCounters.onRead(userId, relevant);
+    }
+
+    public SseEmitter stream(UUID userId, Long lastEventId) {
+        return pushHub.connect(userId, lastEventId);
+    }
+
+    public Set<String> zones(UUID userId) {
+        return subscriptions.zonesOf(userId);
+    }
+
+    public Set<String> subscribe(UUID userId, Collection<String> zones) {
+        Set<String> keys = subscriptions.replace(userId, zones);
+        unreadCounters.invalidate(userId);
+        pushHub.onSubscriptionsChanged(userId);
+        return keys;
+    }
+}
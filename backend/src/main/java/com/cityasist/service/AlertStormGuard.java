@@ -0,0 +1,83 @@
+package com.cityasist.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Ingest-side guard against alert storms, keyed by (type, zone, severity) with type and severity
+ * compared case-insensitively. Only alerts posted through the API are checked; the ones the system raises
+ * itself (escalations, flood level crossings) carry their own dedupe and never come through here.
+ *
+ * After an alert is emitted for a key, repeats within the dedupe window are merged into it rather than
+ * creating new alerts. Past the window a token bucket per key still caps how often a new alert may be
+ * emitted; without a token the repeat is merged as well. Each key's state is an immutable snapshot
+ * swapped with compare-and-set, and a merge decision only reads it, so the check takes no locks.
+ */
+@Component
+public class AlertStormGuard {
+    public enum Decision { EMIT, MERGE }
+
+    private record State(double tokens, long refilledAt, long emittedAt, boolean emitted) {}
+
+    private final boolean enabled;
+    private final long windowNanos;
+    private final double burst;
+    private final double tokensPerNano;
+    private final int maxKeys;
+    private final Map<String, AtomicReference<State>> keys = new ConcurrentHashMap<>();
+
+    public AlertStormGuard(@Value("${app.alerts.storm.enabled:false}") boolean enabled,
+                           @Value("${app.alerts.storm.dedupeWindowSeconds:300}") long dedupeWindowSeconds,
+                           @Value("${app.alerts.storm.burst:3}") int burst,
+                           @Value("${app.alerts.storm.perHour:12}") int perHour,
+                           @Value("${app.alerts.storm.maxKeys:10000}") int maxKeys) {
+        this.enabled = enabled;
+        this.windowNanos = TimeUnit.SECONDS.toNanos(Math.max(0, dedupeWindowSeconds));
+        this.burst = Math.max(1, burst);
+        this.tokensPerNano = Math.max(1, perHour) / (double) TimeUnit.HOURS.toNanos(1);
+        this.maxKeys = Math.max(1, maxKeys);
+    }
+
+    public Decision admit(String type, String zone, String severity) {
+        if (!enabled) return Decision.EMIT;
+        String key = key(type, zone, severity);
+        long now = System.nanoTime();
+        AtomicReference<State> ref = keys.get(key);
+        if (ref == null) {
+            if (keys.size() >= maxKeys) prune(now);
+            ref = keys.computeIfAbsent(key, k -> new AtomicReference<>(new State(burst, now, 0, false)));
+        }
+        while (true) {
+            State s = ref.get();
+            if (s.emitted() && now - s.emittedAt() < windowNanos) return Decision.MERGE;
+            double tokens = Math.min(burst, s.tokens() + (now - s.refilledAt()) * tokensPerNano);
+            if (tokens < 1) return Decision.MERGE;
+            if (ref.compareAndSet(s, new State(tokens - 1, now, now, true))) return Decision.EMIT;
+        }
+    }
+
+    // Matches how a merged repeat finds its alert: alerts are stored trimmed, type and severity are looked up
+    // ignoring case, zone is exact
+    private static String key(String type, String zone, String severity) {
+        return normalize(type) + '|' + (zone != null ? zone : "") + '|' + normalize(severity);
+    }
+
+    private static String normalize(String s) {
+        return s == null ? "" : s.trim().toLowerCase(Locale.ROOT);
+    }
+
+    // Drops keys whose window has passed and whose bucket has refilled; they'd start from the same state
+    private void prune(long now) {
+        keys.values().removeIf(ref -> {
+            State s = ref.get();
+            boolean windowOver = !s.emitted() || now - s.emittedAt() >= windowNanos;
+            return windowOver && s.tokens() + (now - s.refilledAt()) * tokensPerNano >= burst;
+        });
+    }
+}
@@ -0,0 +1,127 @@
+package com.cityasist.service;
+
+import com.cityasist.domain.Alert;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Per-user unread alert counts for the badge. A count is built once, on the user's first request, and
+ * afterwards adjusted in place as alerts are created and read, so polling the badge costs no SQL.
+ * Counts are dropped (and rebuilt on the next request) when a user's zones change, and single entries
+ * are evicted when the map reaches maxEntries. A new zoned alert only touches the counters of that
+ * zone's subscribers and of users without subscriptions; a citywide one touches every counter.
+ *
+ * While a count is being built, a placeholder counter records whether anything changed for the user;
+ * if it did, the count may or may not include that change, so it is computed again.
+ */
+@Component
+public class AlertUnreadCounters {
+    private static final int BUILD_ATTEMPTS = 3;
+
+    private final ZoneSubscriptions subscriptions;
+    private final int maxEntries;
+    private final Map<UUID, Counter> counters = new ConcurrentHashMap<>();
+    // Counted users without zone subscriptions; a subscription change invalidates the user's counter
+    private final Set<UUID> allZoneUsers = ConcurrentHashMap.newKeySet();
+
+    public AlertUnreadCounters(ZoneSubscriptions subscriptions,
+                               @Value("${app.alerts.unreadCounters.maxEntries:100000}") int maxEntries) {
+        this.subscriptions = subscriptions;
+        this.maxEntries = Math.max(1, maxEntries);
+    }
+
+    /** Current count, or null when the user has none yet. */
+    public Long get(UUID userId) {
+        Counter c = counters.get(userId);
+        return c != null && c.ready ? Math.max(0, c.count.sum()) : null;
+    }
+
+    /** Current count, building it with {@code count} when the user has none yet. */
+    public long get(UUID userId, LongSupplier count) {
+        for (int attempt = 0; attempt < BUILD_ATTEMPTS; attempt++) {
+            Long current = get(userId);
+            if (current != null) return current;
+            Counter placeholder = placeholder(userId);
+            long changes = placeholder.changes;
+            long built = count.getAsLong();
+            synchronized (placeholder) {
+                if (placeholder.ready) continue;
+                // Gone means invalidated or evicted meanwhile; start over
+                if (placeholder.changes != changes || counters.get(userId) != placeholder) continue;
+                placeholder.count.add(built);
+                placeholder.ready = true;
+                return Math.max(0, built);
+            }
+        }
+        // Alerts keep changing for this user: answer without caching
+        return Math.max(0, count.getAsLong());
+    }
+
+    public void onCreated(Alert alert) {
+        String zone = ZoneSubscriptions.key(alert.getZone());
+        if (zone == null) {
+            counters.values().forEach(c -> c.add(1));
+            return;
+        }
+        subscriptions.subscribersOf(zone).forEach(userId -> increment(userId, alert));
+        allZoneUsers.forEach(userId -> increment(userId, alert));
+    }
+
+    private void increment(UUID userId, Alert alert) {
+        Counter c = counters.get(userId);
+        if (c != null && subscriptions.isRelevant(userId, alert)) c.add(1);
+    }
+
+    public void onRead(UUID userId, long count) {
+        Counter c = counters.get(userId);
+        if (c != null) c.add(-count);
+    }
+
+    public void invalidate(UUID userId) {
+        counters.remove(userId);
+        allZoneUsers.remove(userId);
+    }
+
+    private Counter placeholder(UUID userId) {
+        Counter existing = counters.get(userId);
+        if (existing != null) return existing;
+        evictIfFull();
+        Counter fresh = new Counter();
+        Counter raced = counters.putIfAbsent(userId, fresh);
+        if (raced != null) return raced;
+        if (subscriptions.zonesOf(userId).isEmpty()) allZoneUsers.add(userId);
+        return fresh;
+    }
+
+    // Drops arbitrary single entries (hash order) until there is room; evicted users rebuild on demand
+    private void evictIfFull() {
+        Iterator<UUID> it = counters.keySet().iterator();
+        while (counters.size() >= maxEntries && it.hasNext()) invalidate(it.next());
+    }
+
+    private static final class Counter {
+        final LongAdder count = new LongAdder();
+        volatile boolean ready;
+        volatile long changes; // written under this, only counted until ready
+
+        void add(long delta) {
+            if (!ready) {
+                synchronized (this) {
+                    if (!ready) {
+                        changes++;
+                        return;
+                    }
+                }
+            }
+            count.add(delta);
+        }
+    }
+}
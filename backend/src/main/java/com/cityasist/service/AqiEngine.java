@@ -0,0 +1,243 @@
+package com.cityasist.service;
+
+import com.cityasist.repo.AqiReadingsRepository;
+import com.cityasist.repo.AqiReadingsRepository.AqiReading;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Current AQI per sensor and zone from PM2.5/PM10 readings, kept incrementally.
+ *
+ * Each sensor holds twelve hourly (sum, count) buckets per pollutant in a ring; a reading adds to its
+ * hour's bucket in O(1) and the ring rotates as hours pass. The NowCast (EPA weighting of the last twelve
+ * hourly means, weight factor min/max floored at 0.5) is evaluated from those buckets on read, and the
+ * value at the end of each hour with data is kept as a short history. New readings are picked up from
+ * sensor_timeseries in ingest order, not event time: writers stamp their own times and backfill. Each poll
+ * re-reads a trailing overlap window so a row whose insert committed late is still seen, and skips the
+ * ids already applied in that window. A zone reports its worst sensor.
+ */
+@Service
+public class AqiEngine {
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(AqiEngine.class);
+    private static final int HOURS = 12;
+    private static final long HOUR_SECONDS = 3600;
+
+    public record HourlyAqi(Instant hour, int aqi) {}
+
+    public record SensorAqi(UUID sensorId, String zone, Integer aqi, String category, String dominant,
+                            Double pm25NowCast, Double pm10NowCast, Instant lastReadingAt, List<HourlyAqi> recent) {}
+
+    public record ZoneAqi(String zone, Integer aqi, String category, String dominant, UUID worstSensorId,
+                          Double pm25NowCast, Double pm10NowCast, int sensors) {}
+
+    private final AqiReadingsRepository readingsRepository;
+    private final boolean enabled;
+    private final int batchSize;
+    private final int historyHours;
+    private final Map<UUID, SensorState> sensors = new ConcurrentHashMap<>();
+    private final Map<String, Set<UUID>> zones = new ConcurrentHashMap<>();
+    private final Duration overlap;
+    // Newest ingested_at applied; each poll starts overlap before it
+    private Instant ingestedCursor;
+    // Ids applied within the overlap window, with their ingested_at
+    private final Map<UUID, Instant> recentIds = new HashMap<>();
+
+    public AqiEngine(AqiReadingsRepository readingsRepository,
+                     @Value("${app.aqi.enabled:false}") boolean enabled,
+                     @Value("${app.aqi.batchSize:5000}") int batchSize,
+                     @Value("${app.aqi.historyHours:24}") int historyHours,
+                     @Value("${app.aqi.overlapSeconds:120}") long overlapSeconds) {
+        this.readingsRepository = readingsRepository;
+        this.enabled = enabled;
+        this.batchSize = Math.max(1, batchSize);
+        this.historyHours = Math.max(1, historyHours);
+        this.overlap = Duration.ofSeconds(Math.max(0, overlapSeconds));
+        // the first poll loads exactly the window the NowCast needs
+        this.ingestedCursor = Instant.now().minus(Duration.ofHours(HOURS));
+    }
+
+    @Scheduled(fixedDelayString = "${app.aqi.pollMs:60000}")
+    public synchronized void poll() {
+        if (!enabled) return;
+        try {
+            int applied = 0;
+            // readings older than the NowCast window no longer count, however late they arrive
+            Instant since = Instant.now().minus(Duration.ofHours(HOURS));
+            Instant afterIngested = ingestedCursor.minus(overlap);
+            UUID afterId = new UUID(0, 0);
+            List<AqiReading> batch;
+            do {
+                batch = readingsRepository.findIngestedAfter(afterIngested, afterId, since, batchSize);
+                for (AqiReading r : batch) {
+                    afterIngested = r.ingestedAt();
+                    afterId = r.id();
+                    if (recentIds.putIfAbsent(r.id(), r.ingestedAt()) != null) continue;
+                    accept(r);
+                    if (r.ingestedAt().isAfter(ingestedCursor)) ingestedCursor = r.ingestedAt();
+                    applied++;
+                }
+            } while (batch.size() == batchSize);
+            Instant horizon = ingestedCursor.minus(overlap);
+            recentIds.values().removeIf(t -> t.isBefore(horizon));
+            if (applied > 0) log.debug("AQI readings applied count={} ingestedCursor={}", applied, ingestedCursor);
+        } catch (Exception e) {
+            log.warn("AQI poll failed: {}", e.getMessage());
+        }
+    }
+
+    /** Folds one reading into its sensor's hourly buckets. */
+    public void accept(AqiReading r) {
+        SensorState s = sensors.computeIfAbsent(r.sensorId(), id -> new SensorState(id, historyHours));
+        String previousZone = s.setZone(r.zone());
+        if (r.zone() != null && !r.zone().equals(previousZone)) {
+            if (previousZone != null) zones.getOrDefault(previousZone, Set.of()).remove(r.sensorId());
+            zones.computeIfAbsent(r.zone(), z -> ConcurrentHashMap.newKeySet()).add(r.sensorId());
+        }
+        s.add(hourOf(r.time()), r.time(), r.pm25(), r.pm10());
+    }
+
+    public Optional<SensorAqi> sensor(UUID sensorId) {
+        SensorState s = sensors.get(sensorId);
+        return s == null ? Optional.empty() : Optional.of(s.snapshot(hourOf(Instant.now())));
+    }
+
+    public List<SensorAqi> sensors() {
+        long now = hourOf(Instant.now());
+        List<SensorAqi> out = new ArrayList<>(sensors.size());
+        sensors.values().forEach(s -> out.add(s.snapshot(now)));
+        out.sort(Comparator.comparing(a -> a.sensorId().toString()));
+        return out;
+    }
+
+    public Optional<ZoneAqi> zone(String zone) {
+        Set<UUID> ids = zone == null ? null : zones.get(zone);
+        if (ids == null || ids.isEmpty()) return Optional.empty();
+        long now = hourOf(Instant.now());
+        SensorAqi worst = null;
+        int count = 0;
+        for (UUID id : ids) {
+            SensorState s = sensors.get(id);
+            if (s == null) continue;
+            count++;
+            SensorAqi a = s.snapshot(now);
+            if (a.aqi() != null && (worst == null || a.aqi() > worst.aqi())) worst = a;
+        }
+        if (worst == null) return Optional.of(new ZoneAqi(zone, null, null, null, null, null, null, count));
+        return Optional.of(new ZoneAqi(zone, worst.aqi(), worst.category(), worst.dominant(), worst.sensorId(),
+                worst.pm25NowCast(), worst.pm10NowCast(), count));
+    }
+
+    private static long hourOf(Instant t) {
+        return Math.floorDiv(t.getEpochSecond(), HOUR_SECONDS);
+    }
+
+    private static final class SensorState {
+        private final UUID sensorId;
+        private final double[] pm25Sum = new double[HOURS], pm10Sum = new double[HOURS];
+        private final int[] pm25Count = new int[HOURS], pm10Count = new int[HOURS];
+        private final long[] historyHour;
+        private final int[] historyAqi;
+        private int historySize, historyHead;
+        private int head;
+        private long currentHour = Long.MIN_VALUE;
+        private volatile String zone;
+        private Instant lastReadingAt;
+
+        SensorState(UUID sensorId, int historyHours) {
+            this.sensorId = sensorId;
+            this.historyHour = new long[historyHours];
+            this.historyAqi = new int[historyHours];
+        }
+
+        String setZone(String z) {
+            String previous = zone;
+            if (z != null) zone = z;
+            return previous;
+        }
+
+        synchronized void add(long hour, Instant time, Double pm25, Double pm10) {
+            if (currentHour == Long.MIN_VALUE) currentHour = hour;
+            advanceTo(hour);
+            long age = currentHour - hour;
+            if (age >= HOURS) return; // older than the NowCast window
+            int i = Math.floorMod(head - (int) age, HOURS);
+            if (pm25 != null && pm25 >= 0) { pm25Sum[i] += pm25; pm25Count[i]++; }
+            if (pm10 != null && pm10 >= 0) { pm10Sum[i] += pm10; pm10Count[i]++; }
+            if (lastReadingAt == null || time.isAfter(lastReadingAt)) lastReadingAt = time;
+        }
+
+        synchronized SensorAqi snapshot(long nowHour) {
+            advanceTo(nowHour);
+            double pm25 = nowCast(pm25Sum, pm25Count);
+            double pm10 = nowCast(pm10Sum, pm10Count);
+            int i25 = AqiScale.pm25(pm25), i10 = AqiScale.pm10(pm10);
+            Integer aqi = i25 < 0 && i10 < 0 ? null : Math.max(i25, i10);
+            List<HourlyAqi> recent = new ArrayList<>(historySize);
+            for (int k = historySize - 1; k >= 0; k--) {
+                int j = Math.floorMod(historyHead - 1 - k, historyAqi.length);
+                recent.add(new HourlyAqi(Instant.ofEpochSecond(historyHour[j] * HOUR_SECONDS), historyAqi[j]));
+            }
+            return new SensorAqi(sensorId, zone, aqi, aqi == null ? null : AqiScale.category(aqi),
+                    aqi == null ? null : i25 >= i10 ? "pm25" : "pm10",
+                    Double.isNaN(pm25) ? null : pm25, Double.isNaN(pm10) ? null : pm10, lastReadingAt, recent);
+        }
+
+        // Closes the current hour (recording its AQI if it had data) and clears buckets for the hours skipped
+        private void advanceTo(long hour) {
+            if (currentHour == Long.MIN_VALUE || hour <= currentHour) return;
+            if (pm25Count[head] > 0 || pm10Count[head] > 0) {
+                int aqi = Math.max(AqiScale.pm25(nowCast(pm25Sum, pm25Count)), AqiScale.pm10(nowCast(pm10Sum, pm10Count)));
+                if (aqi >= 0) {
+                    historyHour[historyHead] = currentHour;
+                    historyAqi[historyHead] = aqi;
+                    historyHead = (historyHead + 1) % historyAqi.length;
+                    historySize = Math.min(historySize + 1, historyAqi.length);
+                }
+            }
+            long steps = Math.min(hour - currentHour, HOURS);
+            for (long s = 0; s < steps; s++) {
+                head = (head + 1) % HOURS;
+                pm25Sum[head] = pm10Sum[head] = 0;
+                pm25Count[head] = pm10Count[head] = 0;
+            }
+            currentHour = hour;
+        }
+
+        // NaN unless at least two of the three most recent hours have data
+        private double nowCast(double[] sum, int[] count) {
+            int recent = 0;
+            double min = Double.MAX_VALUE, max = 0;
+            for (int k = 0; k < HOURS; k++) {
+                int j = Math.floorMod(head - k, HOURS);
+                if (count[j] == 0) continue;
+                if (k < 3) recent++;
+                double c = sum[j] / count[j];
+                min = Math.min(min, c);
+                max = Math.max(max, c);
+            }
+            if (recent < 2) return Double.NaN;
+            double w = max > 0 ? Math.max(0.5, min / max) : 1.0;
+            double num = 0, den = 0, wk = 1;
+            for (int k = 0; k < HOURS; k++, wk *= w) {
+                int j = Math.floorMod(head - k, HOURS);
+                if (count[j] == 0) continue;
+                num += wk * (sum[j] / count[j]);
+                den += wk;
+            }
+            return num / den;
+        }
+    }
+}
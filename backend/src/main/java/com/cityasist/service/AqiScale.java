@@ -0,0 +1,41 @@
+package com.cityasist.service;
+
+/** US EPA AQI breakpoints for PM2.5 (2024 revision) and PM10; concentrations in ug/m3. */
+final class AqiScale {
+    private static final double[] PM25 = {0.0, 9.0, 35.4, 55.4, 125.4, 225.4, 325.4};
+    private static final double[] PM10 = {0, 54, 154, 254, 354, 424, 604};
+    private static final int[] INDEX = {0, 50, 100, 150, 200, 300, 500};
+
+    private AqiScale() {}
+
+    /** Sub-index for a PM2.5 concentration, or -1 when there is none. */
+    static int pm25(double c) {
+        return Double.isNaN(c) ? -1 : index(Math.floor(c * 10) / 10, PM25, 0.1);
+    }
+
+    static int pm10(double c) {
+        return Double.isNaN(c) ? -1 : index(Math.floor(c), PM10, 1);
+    }
+
+    static String category(int aqi) {
+        if (aqi <= 50) return "GOOD";
+        if (aqi <= 100) return "MODERATE";
+        if (aqi <= 150) return "UNHEALTHY_SENSITIVE";
+        if (aqi <= 200) return "UNHEALTHY";
+        if (aqi <= 300) return "VERY_UNHEALTHY";
+        return "HAZARDOUS";
+    }
+
+    // Linear within the band; bands start one step above the previous band's upper bound
+    private static int index(double c, double[] bp, double step) {
+        if (c <= bp[1]) return (int) Math.round(INDEX[1] * c / bp[1]);
+        for (int i = 2; i < bp.length; i++) {
+            if (c <= bp[i]) {
+                double lo = bp[i - 1] + step;
+                int iLo = INDEX[i - 1] + 1;
+                return (int) Math.round((INDEX[i] - iLo) * (c - lo) / (bp[i] - lo) + iLo);
+            }
+        }
+        return INDEX[INDEX.length - 1];
+    }
+}
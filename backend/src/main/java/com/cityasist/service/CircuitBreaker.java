@@ -0,0 +1,63 @@
+package com.cityasist.service;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Consecutive-failure circuit breaker. Opens after failureThreshold failures in a row and rejects calls
+ * for openDuration; after that one trial call is let through (half-open) and its outcome closes the
+ * breaker or opens it again. Lock-free, so checking it costs a couple of volatile reads.
+ */
+public final class CircuitBreaker {
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private static final long CLOSED = Long.MIN_VALUE;
+
+    private final int failureThreshold;
+    private final long openNanos;
+    private final AtomicInteger failures = new AtomicInteger();
+    private final AtomicLong openedAt = new AtomicLong(CLOSED);
+    private final AtomicBoolean trialInFlight = new AtomicBoolean();
+
+    public CircuitBreaker(int failureThreshold, Duration openDuration) {
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.openNanos = Math.max(1, openDuration.toNanos());
+    }
+
+    /** Whether a call may go ahead; a true result while half-open makes the caller the trial call. */
+    public boolean tryAcquire() {
+        long opened = openedAt.get();
+        if (opened == CLOSED) return true;
+        if (System.nanoTime() - opened < openNanos) return false;
+        return trialInFlight.compareAndSet(false, true);
+    }
+
+    public void onSuccess() {
+        failures.set(0);
+        openedAt.set(CLOSED);
+        trialInFlight.set(false);
+    }
+
+    public void onFailure() {
+        if (openedAt.get() != CLOSED) {
+            // the half-open trial (or a straggler) failed: stay open for another period
+            openedAt.set(System.nanoTime());
+            trialInFlight.set(false);
+            return;
+        }
+        if (failures.incrementAndGet() >= failureThreshold) openedAt.compareAndSet(CLOSED, System.nanoTime());
+    }
+
+    /** The call was abandoned by the caller, which says nothing about the service; frees the trial slot. */
+    public void onCancelled() {
+        trialInFlight.set(false);
+    }
+
+    public State state() {
+        long opened = openedAt.get();
+        if (opened == CLOSED) return State.CLOSED;
+        return System.nanoTime() - opened < openNanos ? State.OPEN : State.HALF_OPEN;
+    }
+}
@@ -0,0 +1,323 @@
+package com.cityasist.service;
+
+import com.cityasist.domain.Incident;
+import com.cityasist.domain.IncidentTimeline;
+import com.cityasist.domain.Role;
+import com.cityasist.domain.User;
+import com.cityasist.repo.IncidentRepository;
+import com.cityasist.repo.IncidentTimelineRepository;
+import com.cityasist.repo.UserRepository;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Assigns unassigned incidents to operators as they arrive.
+ *
+ * Pending incidents sit in a lock-free skip list ordered by a "virtual report time": the real report
+ * time minus a head start per severity step. Because every incident ages at the same rate, that key
+ * orders by severity and age together without ever having to be re-scored. Operator load is a
+ * per-operator atomic counter reserved by CAS, so producers never block; a single dispatcher thread
+ * drains the queue and persists assignments with a conditional update that never overrides a manual one.
+ */
+@Service
+public class DispatchEngine {
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(DispatchEngine.class);
+    private static final long RETRY_DELAY_MS = 5_000;
+
+    private final IncidentRepository incidentRepository;
+    private final IncidentTimelineRepository timelineRepository;
+    private final UserRepository userRepository;
+    private final OperatorDirectory operatorDirectory;
+    private final TransactionTemplate tx;
+    private final boolean enabled;
+    private final int maxOpenPerOperator;
+    private final long headStartMillisPerSeverity;
+
+    private final ConcurrentSkipListSet<Pending> queue = new ConcurrentSkipListSet<>(
+            Comparator.comparingLong(Pending::virtualTime).thenComparing(Pending::id));
+    private final ConcurrentHashMap<UUID, Pending> pendingById = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<UUID, OperatorSlot> operators = new ConcurrentHashMap<>();
+    private final AtomicBoolean drainScheduled = new AtomicBoolean();
+    private final ExecutorService dispatcher = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "incident-dispatch");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final LongAdder assignedCount = new LongAdder();
+    private final LongAdder latencyMillisTotal = new LongAdder();
+    private final AtomicLong latencyMillisMax = new AtomicLong();
+
+    record Pending(UUID id, long virtualTime, long enqueuedAt, String location) {}
+
+    static final class OperatorSlot {
+        final UUID id;
+        final String zone;
+        final AtomicInteger open = new AtomicInteger();
+
+        OperatorSlot(UUID id, String zone) {
+            this.id = id;
+            this.zone = zone == null || zone.isBlank() ? null : zone.trim().toLowerCase(Locale.ROOT);
+        }
+
+        boolean covers(String location) {
+            return zone != null && location != null && location.toLowerCase(Locale.ROOT).contains(zone);
+        }
+    }
+
+    public DispatchEngine(IncidentRepository incidentRepository,
+                          IncidentTimelineRepository timelineRepository,
+                          UserRepository userRepository,
+                          OperatorDirectory operatorDirectory,
+                          PlatformTransactionManager transactionManager,
+                          @Value("${app.dispatch.enabled:false}") boolean enabled,
+                          @Value("${app.dispatch.maxOpenPerOperator:5}") int maxOpenPerOperator,
+                          @Value("${app.dispatch.severityHeadStartMinutes:15}") long severityHeadStartMinutes) {
+        this.incidentRepository = incidentRepository;
+        this.timelineRepository = timelineRepository;
+        this.userRepository = userRepository;
+        this.operatorDirectory = operatorDirectory;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.maxOpenPerOperator = Math.max(1, maxOpenPerOperator);
+        this.headStartMillisPerSeverity = severityHeadStartMinutes * 60_000L;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        if (!enabled) return;
+        for (User u : userRepository.findByRole(Role.OPERATOR)) {
+            operators.put(u.getId(), new OperatorSlot(u.getId(), u.getZone()));
+        }
+        for (Object[] row : incidentRepository.countOpenByAssignee(IncidentStates.CLOSED_STATUSES)) {
+            OperatorSlot slot = operators.get((UUID) row[0]);
+            if (slot != null) slot.open.set(((Number) row[1]).intValue());
+        }
+        List<Incident> unassigned = incidentRepository.findUnassignedOpen(IncidentStates.CLOSED_STATUSES);
+        unassigned.forEach(this::enqueue);
+        log.info("Dispatch engine started operators={} pending={}", operators.size(), unassigned.size());
+        scheduleDrain();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        dispatcher.shutdownNow();
+    }
+
+    /** Queues a new or re-opened unassigned incident; if called inside a transaction it waits for commit. */
+    public void submit(Incident incident) {
+        if (!enabled || incident.getAssignedTo() != null || IncidentStates.isClosed(incident.getStatus())) return;
+        AfterCommit.run(() -> {
+            enqueue(incident);
+            scheduleDrain();
+        });
+    }
+
+    /** Keeps queue and load counters in step with a manual assignment. */
+    public void onAssigned(Incident incident, UUID previousAssignee) {
+        if (!enabled) return;
+        AfterCommit.run(() -> {
+            cancel(incident.getId());
+            if (IncidentStates.isClosed(incident.getStatus())) return;
+            release(previousAssignee);
+            OperatorSlot next = incident.getAssignedTo() != null ? operators.get(incident.getAssignedTo()) : null;
+            if (next != null) next.open.incrementAndGet();
+        });
+    }
+
+    /** Re-keys a still-pending incident so its queue position reflects the new severity. */
+    public void onSeverityChanged(Incident incident) {
+        if (!enabled) return;
+        AfterCommit.run(() -> {
+            Pending p = pendingById.get(incident.getId());
+            if (p == null || !pendingById.remove(p.id(), p)) return;
+            queue.remove(p);
+            enqueue(incident, p.enqueuedAt());
+            scheduleDrain();
+        });
+    }
+
+    /** Frees or re-takes operator capacity when an incident moves into or out of a closed status. */
+    public void onStatusChanged(Incident incident, String previousStatus) {
+        if (!enabled) return;
+        boolean wasClosed = IncidentStates.isClosed(previousStatus);
+        boolean isClosed = IncidentStates.isClosed(incident.getStatus());
+        if (wasClosed == isClosed) return;
+        AfterCommit.run(() -> {
+            if (isClosed) {
+                cancel(incident.getId());
+                release(incident.getAssignedTo());
+            } else if (incident.getAssignedTo() != null) {
+                OperatorSlot slot = operators.get(incident.getAssignedTo());
+                if (slot != null) slot.open.incrementAndGet();
+            } else {
+                enqueue(incident);
+            }
+            scheduleDrain();
+        });
+    }
+
+    public void onOperatorCreated(User user) {
+        if (!enabled || user.getRole() != Role.OPERATOR) return;
+        AfterCommit.run(() -> {
+            operators.put(user.getId(), new OperatorSlot(user.getId(), user.getZone()));
+            scheduleDrain();
+        });
+    }
+
+    public void onUserDeleted(UUID userId) {
+        if (!enabled) return;
+        AfterCommit.run(() -> operators.remove(userId));
+    }
+
+    public Map<String, Object> snapshot() {
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("enabled", enabled);
+        out.put("pending", pendingById.size());
+        out.put("maxOpenPerOperator", maxOpenPerOperator);
+        List<Map<String, Object>> ops = new ArrayList<>();
+        operators.values().forEach(o -> {
+            Map<String, Object> m = new LinkedHashMap<>();
+            m.put("id", o.id);
+            m.put("zone", o.zone);
+            m.put("open", o.open.get());
+            ops.add(m);
+        });
+        out.put("operators", ops);
+        long assigned = assignedCount.sum();
+        out.put("assigned", assigned);
+        out.put("avgAssignLatencyMs", assigned == 0 ? 0 : latencyMillisTotal.sum() / (double) assigned);
+        out.put("maxAssignLatencyMs", latencyMillisMax.get());
+        return out;
+    }
+
+    private void enqueue(Incident i) {
+        enqueue(i, System.currentTimeMillis());
+    }
+
+    private void enqueue(Incident i, long enqueuedAt) {
+        Instant reported = i.getReportedAt() != null ? i.getReportedAt() : Instant.now();
+        long virtualTime = reported.toEpochMilli() - IncidentStates.severityRank(i.getSeverity()) * headStartMillisPerSeverity;
+        Pending p = new Pending(i.getId(), virtualTime, enqueuedAt, i.getLocation());
+        if (pendingById.putIfAbsent(p.id(), p) == null) queue.add(p);
+    }
+
+    private void cancel(UUID incidentId) {
+        Pending p = pendingById.remove(incidentId);
+        if (p != null) queue.remove(p);
+    }
+
+    private void release(UUID operatorId) {
+        OperatorSlot slot = operatorId != null ? operators.get(operatorId) : null;
+        if (slot != null) {
+            slot.open.updateAndGet(n -> Math.max(0, n - 1));
+            scheduleDrain();
+        }
+    }
+
+    private void scheduleDrain() {
+        if (drainScheduled.compareAndSet(false, true)) {
+            dispatcher.execute(() -> {
+                drainScheduled.set(false);
+                try {
+                    drain();
+                } catch (Exception e) {
+                    log.warn("Dispatch drain failed: {}", e.getMessage());
+                }
+            });
+        }
+    }
+
+    private void drain() {
+        Pending p;
+        while ((p = queue.pollFirst()) != null) {
+            if (!pendingById.remove(p.id(), p)) continue; // cancelled meanwhile
+            OperatorSlot slot = reserve(p.location());
+            if (slot == null) {
+                // everyone is at capacity; put it back and wait for capacity to free up
+                if (pendingById.putIfAbsent(p.id(), p) == null) queue.add(p);
+                return;
+            }
+            boolean assigned;
+            try {
+                assigned = persist(p.id(), slot.id);
+            } catch (RuntimeException e) {
+                // keep the incident and the capacity; try again shortly rather than spinning on a failing DB
+                slot.open.updateAndGet(n -> Math.max(0, n - 1));
+                if (pendingById.putIfAbsent(p.id(), p) == null) queue.add(p);
+                log.warn("Dispatch assignment failed id={}, retrying in {}ms: {}", p.id(), RETRY_DELAY_MS, e.getMessage());
+                CompletableFuture.delayedExecutor(RETRY_DELAY_MS, TimeUnit.MILLISECONDS).execute(this::scheduleDrain);
+                return;
+            }
+            if (!assigned) {
+                slot.open.updateAndGet(n -> Math.max(0, n - 1));
+                continue;
+            }
+            long latency = System.currentTimeMillis() - p.enqueuedAt();
+            assignedCount.increment();
+            latencyMillisTotal.add(latency);
+            latencyMillisMax.accumulateAndGet(latency, Math::max);
+            log.info("Incident auto-assigned id={} assignedTo={} latencyMs={}", p.id(), slot.id, latency);
+        }
+    }
+
+    // Least-loaded operator covering the location, else least-loaded overall; capacity is taken by CAS
+    private OperatorSlot reserve(String location) {
+        while (true) {
+            OperatorSlot best = null;
+            int bestLoad = Integer.MAX_VALUE;
+            boolean bestCovers = false;
+            for (OperatorSlot o : operators.values()) {
+                int load = o.open.get();
+                if (load >= maxOpenPerOperator) continue;
+                boolean covers = o.covers(location);
+                if (best == null || (covers && !bestCovers) || (covers == bestCovers && load < bestLoad)) {
+                    best = o;
+                    bestLoad = load;
+                    bestCovers = covers;
+                }
+            }
+            if (best == null) return null;
+            if (best.open.compareAndSet(bestLoad, bestLoad + 1)) return best;
+        }
+    }
+
+    private boolean persist(UUID incidentId, UUID operatorId) {
+        Boolean ok = tx.execute(status -> {
+            if (incidentRepository.assignIfUnassigned(incidentId, operatorId, IncidentStates.CLOSED_STATUSES) == 0) return false;
+            IncidentTimeline t = new IncidentTimeline();
+            t.setIncident(incidentRepository.getReferenceById(incidentId));
+            t.setTime(Instant.now());
+            t.setActor("dispatch");
+            t.setText("Automatically assigned to operator " + operatorId);
+            timelineRepository.save(t);
+            operatorDirectory.invalidate();
+            return true;
+        });
+        return Boolean.TRUE.equals(ok);
+    }
+}
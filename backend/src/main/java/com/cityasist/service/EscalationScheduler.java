@@ -0,0 +1,166 @@
+package com.cityasist.service;
+
+import com.cityasist.domain.Incident;
+import com.cityasist.domain.IncidentTimeline;
+import com.cityasist.repo.IncidentRepository;
+import com.cityasist.repo.IncidentTimelineRepository;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Escalates incidents that stay OPEN and unassigned past their severity's deadline.
+ *
+ * One timer per incident lives on a hashed wheel, armed on create/status/severity changes and cancelled
+ * on acknowledgement (assignment or leaving OPEN). On expiry the incident is re-checked in the database,
+ * then a timeline entry and an alert are written. Timers are rebuilt from the database on startup and
+ * the "sla" timeline entry keeps escalation to once per incident across restarts.
+ */
+@Service
+public class EscalationScheduler {
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(EscalationScheduler.class);
+    static final String ACTOR = "sla";
+
+    private final IncidentRepository incidentRepository;
+    private final IncidentTimelineRepository timelineRepository;
+    private final TimelineWriter timelineWriter;
+    private final AlertService alertService;
+    private final TransactionTemplate tx;
+    private final boolean enabled;
+    private final Map<String, Duration> deadlines = new HashMap<>();
+    private final Map<UUID, HashedWheelTimer.Timeout> timers = new ConcurrentHashMap<>();
+    private final HashedWheelTimer wheel;
+    private final ExecutorService escalations = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "sla-escalation");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public EscalationScheduler(IncidentRepository incidentRepository,
+                               IncidentTimelineRepository timelineRepository,
+                               TimelineWriter timelineWriter,
+                               AlertService alertService,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${app.escalation.enabled:false}") boolean enabled,
+                               @Value("${app.escalation.deadlineMinutes:CRITICAL=30,HIGH=120}") String deadlineMinutes) {
+        this.incidentRepository = incidentRepository;
+        this.timelineRepository = timelineRepository;
+        this.timelineWriter = timelineWriter;
+        this.alertService = alertService;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        for (String part : deadlineMinutes.split(",")) {
+            String[] kv = part.split("=", 2);
+            if (kv.length == 2 && !kv[0].isBlank()) {
+                deadlines.put(kv[0].trim().toUpperCase(Locale.ROOT), Duration.ofMinutes(Long.parseLong(kv[1].trim())));
+            }
+        }
+        this.wheel = enabled ? new HashedWheelTimer("sla-wheel", 1, TimeUnit.SECONDS, 512) : null;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        if (!enabled) return;
+        var candidates = incidentRepository.findUnacknowledged(deadlines.keySet());
+        candidates.forEach(i -> arm(i, i.getReportedAt()));
+        log.info("Escalation timers rebuilt count={}", candidates.size());
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (wheel != null) wheel.stop();
+        escalations.shutdownNow();
+    }
+
+    /** Re-evaluates the incident's timer after a change; the SLA clock runs from {@code since}. */
+    public void onChanged(Incident incident, Instant since) {
+        if (!enabled) return;
+        AfterCommit.run(() -> {
+            if (deadlineFor(incident) == null) cancel(incident.getId());
+            else arm(incident, since);
+        });
+    }
+
+    private Duration deadlineFor(Incident i) {
+        if (i.getAssignedTo() != null || i.getStatus() == null || !"OPEN".equalsIgnoreCase(i.getStatus().trim())) return null;
+        return i.getSeverity() == null ? null : deadlines.get(i.getSeverity().trim().toUpperCase(Locale.ROOT));
+    }
+
+    private void arm(Incident incident, Instant since) {
+        Duration deadline = deadlineFor(incident);
+        if (deadline == null) return;
+        UUID id = incident.getId();
+        Instant start = since != null ? since : Instant.now();
+        long delayMs = Duration.between(Instant.now(), start.plus(deadline)).toMillis();
+        // Register before scheduling: an overdue timer can fire on the next tick, before schedule() returns
+        Slot slot = new Slot();
+        HashedWheelTimer.Timeout previous = timers.put(id, slot);
+        if (previous != null) previous.cancel();
+        slot.bind(wheel.schedule(() -> {
+            if (timers.remove(id, slot)) escalations.execute(() -> escalate(id, deadline));
+        }, Math.max(0, delayMs), TimeUnit.MILLISECONDS));
+    }
+
+    private void cancel(UUID incidentId) {
+        HashedWheelTimer.Timeout t = timers.remove(incidentId);
+        if (t != null) t.cancel();
+    }
+
+    private void escalate(UUID incidentId, Duration deadline) {
+        try {
+            tx.executeWithoutResult(status -> {
+                Incident i = incidentRepository.findById(incidentId).orElse(null);
+                if (i == null || deadlineFor(i) == null) return;
+                if (timelineRepository.existsByIncidentIdAndActor(incidentId, ACTOR)) return;
+                String label = i.getIncidentNumber() != null ? "#" + i.getIncidentNumber() : incidentId.toString();
+                String text = i.getSeverity().toUpperCase(Locale.ROOT) + " incident unacknowledged for " + deadline.toMinutes() + " minutes";
+                IncidentTimeline t = new IncidentTimeline();
+                t.setIncident(i);
+                t.setTime(Instant.now());
+                t.setActor(ACTOR);
+                t.setText("Escalated: " + text);
+                timelineWriter.write(t);
+                // Incidents carry a free-text address, not a zone key; a citywide alert reaches every subscriber
+                alertService.create("escalation", "Incident " + label + " needs attention",
+                        i.getTitle() + (i.getLocation() != null ? " at " + i.getLocation() : "") + ": " + text,
+                        "critical", null, AlertService.Origin.SYSTEM);
+                log.warn("Incident escalated id={} severity={} after={}m", incidentId, i.getSeverity(), deadline.toMinutes());
+            });
+        } catch (Exception e) {
+            log.warn("Escalation failed incidentId={}: {}", incidentId, e.getMessage());
+        }
+    }
+
+    /** Stands in for the wheel timeout in {@code timers} until schedule() has returned it. */
+    private static final class Slot implements HashedWheelTimer.Timeout {
+        private volatile HashedWheelTimer.Timeout timeout;
+        private volatile boolean cancelled;
+
+        void bind(HashedWheelTimer.Timeout t) {
+            timeout = t;
+            if (cancelled) t.cancel();
+        }
+
+        @Override
+        public boolean cancel() {
+            cancelled = true;
+            HashedWheelTimer.Timeout t = timeout;
+            return t == null || t.cancel();
+        }
+    }
+}
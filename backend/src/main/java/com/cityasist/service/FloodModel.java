@@ -0,0 +1,130 @@
+package com.cityasist.service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A local flood model compiled from its file definition into primitive fields. Instances are immutable
+ * and shared across threads; the batch loop allocates nothing per row. A missing input is NaN.
+ *
+ * "linear" sums weighted, normalised inputs and adds the zone boost; "logistic" passes the same sum plus
+ * intercept through a sigmoid.
+ */
+public final class FloodModel {
+    /** File form of a model; scales/weights are keyed by feature name. */
+    public record Definition(String name, String version, String kind,
+                             Map<String, Double> scales, Map<String, Double> weights,
+                             Double intercept, Double zoneBoost, String zonePattern,
+                             Map<String, Double> thresholds, Double confidence) {}
+
+    private final String name;
+    private final String version;
+    private final boolean logistic;
+    private final double rainScale, riverScale, soilScale;
+    private final double rainWeight, riverWeight, soilWeight;
+    private final double intercept;
+    private final double zoneBoost;
+    private final Pattern zonePattern;
+    private final double[] thresholds; // descending
+    private final String[] labels;
+    private final double confidence;   // NaN: share of inputs present
+
+    private FloodModel(Definition d) {
+        if (d.name() == null || d.name().isBlank()) throw new IllegalArgumentException("Model name is required");
+        String kind = d.kind() == null ? "linear" : d.kind().trim().toLowerCase(Locale.ROOT);
+        if (!kind.equals("linear") && !kind.equals("logistic")) {
+            throw new IllegalArgumentException("Model " + d.name() + ": unknown kind " + d.kind());
+        }
+        Map<String, Double> scales = d.scales() != null ? d.scales() : Map.of();
+        Map<String, Double> weights = d.weights() != null ? d.weights() : Map.of();
+        this.name = d.name().trim().toLowerCase(Locale.ROOT);
+        this.version = d.version() != null ? d.version() : "1.0.0";
+        this.logistic = kind.equals("logistic");
+        this.rainScale = positive(scales, "rainfall_mm");
+        this.riverScale = positive(scales, "river_level_m");
+        this.soilScale = positive(scales, "soil_moisture_percent");
+        this.rainWeight = weights.getOrDefault("rainfall_mm", 0.0);
+        this.riverWeight = weights.getOrDefault("river_level_m", 0.0);
+        this.soilWeight = weights.getOrDefault("soil_moisture_percent", 0.0);
+        this.intercept = d.intercept() != null ? d.intercept() : 0.0;
+        this.zoneBoost = d.zoneBoost() != null ? d.zoneBoost() : 0.0;
+        this.zonePattern = d.zonePattern() != null && !d.zonePattern().isBlank()
+                ? Pattern.compile(d.zonePattern(), Pattern.CASE_INSENSITIVE) : null;
+        List<Map.Entry<String, Double>> t = new ArrayList<>(d.thresholds() != null ? d.thresholds().entrySet() : List.of());
+        t.sort(Map.Entry.<String, Double>comparingByValue(Comparator.reverseOrder()));
+        this.thresholds = t.stream().mapToDouble(Map.Entry::getValue).toArray();
+        this.labels = t.stream().map(Map.Entry::getKey).toArray(String[]::new);
+        this.confidence = d.confidence() != null ? d.confidence() : Double.NaN;
+    }
+
+    public static FloodModel compile(Definition d) {
+        return new FloodModel(d);
+    }
+
+    public String name() { return name; }
+    public String version() { return version; }
+
+    public boolean isProneZone(String zone) {
+        return zonePattern != null && zone != null && zonePattern.matcher(zone).find();
+    }
+
+    /** Probability in [0,1]; NaN for a linear model with no inputs at all. */
+    public double score(double rainfall, double riverLevel, double soil, boolean prone) {
+        double sum = rainWeight * component(rainfall, rainScale)
+                + riverWeight * component(riverLevel, riverScale)
+                + soilWeight * component(soil, soilScale)
+                + (prone ? zoneBoost : 0.0);
+        if (logistic) return clamp01(1.0 / (1.0 + Math.exp(-(sum + intercept))));
+        if (Double.isNaN(rainfall) && Double.isNaN(riverLevel) && Double.isNaN(soil)) return Double.NaN;
+        return clamp01(sum + intercept);
+    }
+
+    public double confidence(double rainfall, double riverLevel, double soil) {
+        if (!Double.isNaN(confidence)) return confidence;
+        int provided = 0;
+        if (!Double.isNaN(rainfall)) provided++;
+        if (!Double.isNaN(riverLevel)) provided++;
+        if (!Double.isNaN(soil)) provided++;
+        return provided / 3.0;
+    }
+
+    public String label(double prob) {
+        if (Double.isNaN(prob)) return "UNKNOWN";
+        for (int i = 0; i < thresholds.length; i++) {
+            if (prob >= thresholds[i]) return labels[i];
+        }
+        return "VERY_LOW";
+    }
+
+    /** Scores row i of the columns into the output arrays; {@code zones} may be null. */
+    public void score(double[] rainfall, double[] riverLevel, double[] soil, String[] zones,
+                      double[] probability, double[] confidences, String[] outLabels) {
+        Matcher m = zonePattern != null && zones != null ? zonePattern.matcher("") : null;
+        for (int i = 0; i < probability.length; i++) {
+            boolean prone = m != null && zones[i] != null && m.reset(zones[i]).find();
+            double p = score(rainfall[i], riverLevel[i], soil[i], prone);
+            probability[i] = p;
+            confidences[i] = confidence(rainfall[i], riverLevel[i], soil[i]);
+            outLabels[i] = label(p);
+        }
+    }
+
+    private static double positive(Map<String, Double> scales, String feature) {
+        double s = scales.getOrDefault(feature, 1.0);
+        if (!(s > 0)) throw new IllegalArgumentException("Scale for " + feature + " must be positive");
+        return s;
+    }
+
+    private static double component(double value, double scale) {
+        return Double.isNaN(value) ? 0.0 : clamp01(value / scale);
+    }
+
+    private static double clamp01(double x) {
+        return Math.max(0.0, Math.min(1.0, x));
+    }
+}
@@ -0,0 +1,166 @@
+package com.cityasist.service;
+
+import com.cityasist.repo.FloodRiskStateRepository;
+import com.cityasist.repo.ZoneReadingsRepository;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Scores flood risk for every zone on a schedule: one aggregate query for the latest readings per zone,
+ * then each zone through {@link AiGatewayService} in parallel. The result replaces the published risk map
+ * as a whole, and zones whose probability rises to the alert threshold raise a flood alert. A zone alerts
+ * once per crossing and re-arms when it drops below the threshold; which zones are above is stored in
+ * flood_risk_state and reloaded on startup, so a restart doesn't alert again for them.
+ */
+@Service
+public class FloodRiskPipeline {
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(FloodRiskPipeline.class);
+
+    public record ZoneRisk(String zone, Double probability, String label, String model, String source, Instant readingsAt) {}
+
+    public record RiskMap(Instant computedAt, Map<String, ZoneRisk> zones) {}
+
+    private final ZoneReadingsRepository readingsRepository;
+    private final FloodRiskStateRepository stateRepository;
+    private final AiGatewayService aiGatewayService;
+    private final AlertService alertService;
+    private final boolean enabled;
+    private final Duration lookback;
+    private final double alertThreshold;
+    private final ExecutorService pool;
+    private volatile RiskMap current = new RiskMap(null, Map.of());
+    // Zones at or above the alert threshold; only touched by run(), which is synchronized
+    private final Set<String> aboveThreshold = new HashSet<>();
+
+    public FloodRiskPipeline(ZoneReadingsRepository readingsRepository,
+                             FloodRiskStateRepository stateRepository,
+                             AiGatewayService aiGatewayService,
+                             AlertService alertService,
+                             @Value("${app.floodRisk.enabled:false}") boolean enabled,
+                             @Value("${app.floodRisk.lookbackMinutes:180}") long lookbackMinutes,
+                             @Value("${app.floodRisk.alertThreshold:0.6}") double alertThreshold,
+                             @Value("${app.floodRisk.parallelism:8}") int parallelism) {
+        this.readingsRepository = readingsRepository;
+        this.stateRepository = stateRepository;
+        this.aiGatewayService = aiGatewayService;
+        this.alertService = alertService;
+        this.enabled = enabled;
+        this.lookback = Duration.ofMinutes(Math.max(1, lookbackMinutes));
+        this.alertThreshold = alertThreshold;
+        this.pool = Executors.newFixedThreadPool(Math.max(1, parallelism), r -> {
+            Thread t = new Thread(r, "flood-risk");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void load() {
+        if (!enabled) return;
+        aboveThreshold.addAll(stateRepository.findZonesAbove());
+        log.info("Flood risk state loaded zonesAbove={}", aboveThreshold.size());
+    }
+
+    @PreDestroy
+    void shutdown() {
+        pool.shutdownNow();
+    }
+
+    /** The last computed risk map; empty until the first run. */
+    public RiskMap current() {
+        return current;
+    }
+
+    @Scheduled(fixedDelayString = "${app.floodRisk.intervalMs:300000}", initialDelayString = "${app.floodRisk.initialDelayMs:30000}")
+    public void scheduledRun() {
+        if (!enabled) return;
+        try {
+            run();
+        } catch (Exception e) {
+            log.warn("Flood risk run failed: {}", e.getMessage());
+        }
+    }
+
+    public synchronized RiskMap run() {
+        Instant now = Instant.now();
+        List<ZoneReadingsRepository.ZoneReadings> readings = readingsRepository.latestByZone(now.minus(lookback));
+        List<CompletableFuture<ZoneRisk>> scored = new ArrayList<>(readings.size());
+        for (ZoneReadingsRepository.ZoneReadings r : readings) {
+            if (r.rainfallMm() == null && r.riverLevelM() == null && r.soilMoisturePercent() == null) continue;
+            scored.add(CompletableFuture.supplyAsync(() -> score(r), pool));
+        }
+        Map<String, ZoneRisk> zones = new LinkedHashMap<>();
+        for (CompletableFuture<ZoneRisk> f : scored) {
+            try {
+                ZoneRisk risk = f.join();
+                zones.put(risk.zone(), risk);
+            } catch (Exception e) {
+                log.warn("Flood risk scoring failed for a zone: {}", e.getMessage());
+            }
+        }
+        RiskMap next = new RiskMap(now, Collections.unmodifiableMap(zones));
+        current = next;
+        zones.values().forEach(this::trackCrossing);
+        log.info("Flood risk map computed zones={} tookMs={}", zones.size(), Duration.between(now, Instant.now()).toMillis());
+        return next;
+    }
+
+    private ZoneRisk score(ZoneReadingsRepository.ZoneReadings r) {
+        Map<String, Object> features = new HashMap<>();
+        if (r.rainfallMm() != null) features.put("rainfall_mm", r.rainfallMm());
+        if (r.riverLevelM() != null) features.put("river_level_m", r.riverLevelM());
+        if (r.soilMoisturePercent() != null) features.put("soil_moisture_percent", r.soilMoisturePercent());
+        features.put("zone", r.zone());
+        Map<String, Object> out = aiGatewayService.predictFlood(features);
+        Double probability = out.get("probability") instanceof Number n ? n.doubleValue() : null;
+        return new ZoneRisk(r.zone(), probability, asString(out.get("label")), asString(out.get("model")),
+                asString(out.get("source")), r.latest());
+    }
+
+    // Alerts when a zone rises to the threshold and re-arms it when it falls back; a zone without a
+    // probability this run keeps its state
+    private void trackCrossing(ZoneRisk risk) {
+        if (risk.probability() == null) return;
+        boolean above = risk.probability() >= alertThreshold;
+        if (above == aboveThreshold.contains(risk.zone())) return;
+        try {
+            if (above) alert(risk);
+            stateRepository.save(risk.zone(), above, risk.probability());
+            if (above) aboveThreshold.add(risk.zone()); else aboveThreshold.remove(risk.zone());
+        } catch (Exception e) {
+            log.warn("Flood risk crossing failed zone={}: {}", risk.zone(), e.getMessage());
+        }
+    }
+
+    private void alert(ZoneRisk risk) {
+        boolean critical = risk.probability() >= 0.8;
+        // alert severities are info/warning/critical
+        String severity = critical ? "critical" : "warning";
+        alertService.create("flood", "Flood risk " + (critical ? "critical" : "high") + " in zone " + risk.zone(),
+                String.format(Locale.ROOT, "Estimated flood probability %.0f%% from readings at %s",
+                        risk.probability() * 100, risk.readingsAt()), severity, risk.zone(), AlertService.Origin.SYSTEM);
+    }
+
+    private static String asString(Object v) {
+        return v == null ? null : String.valueOf(v);
+    }
+}
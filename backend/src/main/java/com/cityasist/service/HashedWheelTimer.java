@@ -0,0 +1,140 @@
+package com.cityasist.service;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hashed timing wheel: scheduling and cancelling a timeout are O(1) regardless of how many are armed.
+ *
+ * New timeouts go through a lock-free queue and are placed into their bucket by the single worker
+ * thread on its next tick; cancelled timeouts are only flagged and get unlinked when the worker next
+ * visits their bucket. Tasks run on the worker thread, so they should hand real work off elsewhere.
+ */
+public final class HashedWheelTimer {
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(HashedWheelTimer.class);
+
+    public interface Timeout {
+        boolean cancel();
+    }
+
+    private final long tickNanos;
+    private final Bucket[] wheel;
+    private final int mask;
+    private final Queue<Entry> pending = new ConcurrentLinkedQueue<>();
+    private final long startNanos = System.nanoTime();
+    private final Thread worker;
+    private volatile boolean running = true;
+    private long tick;
+
+    public HashedWheelTimer(String name, long tickDuration, TimeUnit unit, int wheelSize) {
+        this.tickNanos = Math.max(1, unit.toNanos(tickDuration));
+        int size = Integer.highestOneBit(Math.max(2, wheelSize - 1)) << 1;
+        this.wheel = new Bucket[size];
+        for (int i = 0; i < size; i++) wheel[i] = new Bucket();
+        this.mask = size - 1;
+        this.worker = new Thread(this::run, name);
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    public Timeout schedule(Runnable task, long delay, TimeUnit unit) {
+        Entry e = new Entry(task, System.nanoTime() - startNanos + Math.max(0, unit.toNanos(delay)));
+        pending.add(e);
+        return e;
+    }
+
+    public void stop() {
+        running = false;
+        worker.interrupt();
+    }
+
+    private void run() {
+        while (running) {
+            long deadline = (tick + 1) * tickNanos;
+            long sleepNanos = deadline - (System.nanoTime() - startNanos);
+            if (sleepNanos > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(sleepNanos);
+                } catch (InterruptedException ie) {
+                    if (!running) return;
+                }
+                continue;
+            }
+            transferPending();
+            wheel[(int) (tick & mask)].expire(tick);
+            tick++;
+        }
+    }
+
+    private void transferPending() {
+        Entry e;
+        while ((e = pending.poll()) != null) {
+            if (e.state.get() != Entry.PENDING) continue;
+            long dueTick = e.deadlineNanos / tickNanos;
+            e.remainingRounds = Math.max(0, (dueTick - tick) / wheel.length);
+            wheel[(int) (Math.max(dueTick, tick) & mask)].add(e);
+        }
+    }
+
+    private static final class Entry implements Timeout {
+        static final int PENDING = 0, CANCELLED = 1, EXPIRED = 2;
+
+        final Runnable task;
+        final long deadlineNanos;
+        final AtomicInteger state = new AtomicInteger(PENDING);
+        long remainingRounds;
+        Entry prev, next;
+
+        Entry(Runnable task, long deadlineNanos) {
+            this.task = task;
+            this.deadlineNanos = deadlineNanos;
+        }
+
+        @Override
+        public boolean cancel() {
+            return state.compareAndSet(PENDING, CANCELLED);
+        }
+    }
+
+    // Only touched by the worker thread
+    private static final class Bucket {
+        Entry head, tail;
+
+        void add(Entry e) {
+            e.prev = tail;
+            e.next = null;
+            if (tail == null) head = e; else tail.next = e;
+            tail = e;
+        }
+
+        void remove(Entry e) {
+            if (e.prev == null) head = e.next; else e.prev.next = e.next;
+            if (e.next == null) tail = e.prev; else e.next.prev = e.prev;
+            e.prev = e.next = null;
+        }
+
+        void expire(long tick) {
+            Entry e = head;
+            while (e != null) {
+                Entry next = e.next;
+                if (e.state.get() == Entry.CANCELLED) {
+                    remove(e);
+                } else if (e.remainingRounds <= 0) {
+                    remove(e);
+                    if (e.state.compareAndSet(Entry.PENDING, Entry.EXPIRED)) {
+                        try {
+                            e.task.run();
+                        } catch (Throwable t) {
+                            log.warn("Timer task failed at tick={}: {}", tick, t.getMessage());
+                        }
+                    }
+                } else {
+                    e.remainingRounds--;
+                }
+                e = next;
+            }
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.cityasist.service;
+
+import com.cityasist.repo.IncidentArchiveRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Periodically moves closed incidents with no timeline activity for archive.afterDays days, plus their
+ * timeline, into the partitioned archive tables. Each batch is a single statement, so a batch either
+ * moves completely or not at all, and locks are held only for that batch.
+ */
+@Service
+public class IncidentArchiver {
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(IncidentArchiver.class);
+
+    private final IncidentArchiveRepository archiveRepository;
+    private final boolean enabled;
+    private final long afterDays;
+    private final int batchSize;
+    private final int maxBatchesPerRun;
+
+    public IncidentArchiver(IncidentArchiveRepository archiveRepository,
+                            @Value("${app.archive.enabled:false}") boolean enabled,
+                            @Value("${app.archive.afterDays:90}") long afterDays,
+                            @Value("${app.archive.batchSize:500}") int batchSize,
+                            @Value("${app.archive.maxBatchesPerRun:200}") int maxBatchesPerRun) {
+        this.archiveRepository = archiveRepository;
+        this.enabled = enabled;
+        this.afterDays = afterDays;
+        this.batchSize = Math.max(1, batchSize);
+        this.maxBatchesPerRun = Math.max(1, maxBatchesPerRun);
+    }
+
+    @Scheduled(cron = "${app.archive.cron:0 30 3 * * *}")
+    public void scheduledRun() {
+        if (enabled) archive();
+    }
+
+    public int archive() {
+        Instant cutoff = Instant.now().minus(afterDays, ChronoUnit.DAYS);
+        archiveRepository.oldestCandidate(IncidentStates.CLOSED_STATUSES, cutoff).ifPresent(oldest -> {
+            int fromYear = oldest.atZone(ZoneOffset.UTC).getYear();
+            int toYear = cutoff.atZone(ZoneOffset.UTC).getYear();
+            for (int year = fromYear; year <= toYear; year++) {
+                try {
+                    archiveRepository.ensureYearPartition(year);
+                } catch (Exception e) {
+                    // e.g. rows for that year already sit in the default partition; they stay there
+                    log.warn("Could not create archive partition year={}: {}", year, e.getMessage());
+                }
+            }
+        });
+        int total = 0;
+        for (int b = 0; b < maxBatchesPerRun; b++) {
+            int moved = archiveRepository.moveBatch(IncidentStates.CLOSED_STATUSES, cutoff, batchSize);
+            total += moved;
+            if (moved < batchSize) break;
+        }
+        if (total > 0) log.info("Incidents archived count={} cutoff={}", total, cutoff);
+        return total;
+    }
+}
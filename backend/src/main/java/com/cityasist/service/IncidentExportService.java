@@ -0,0 +1,184 @@
+package com.cityasist.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Streams filtered incident rows from a server-side cursor into a gzip-compressed CSV or NDJSON body.
+ * Rows are written as they are fetched, so memory stays at one fetch batch regardless of row count.
+ * Exports cover archived incidents too, with the same filters as the incident list.
+ */
+@Service
+public class IncidentExportService {
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(IncidentExportService.class);
+    private static final String[] COLUMNS = {
+            "id", "incident_number", "title", "type", "severity", "status",
+            "location", "reported_at", "assigned_to", "reporter_id", "data"
+    };
+    // The archiver moves a row out of incidents in the same statement that inserts it here, so the two never overlap
+    private static final String SOURCE = "(SELECT %1$s FROM incidents UNION ALL SELECT %1$s FROM incidents_archive) i"
+            .formatted(String.join(", ", COLUMNS));
+
+    public enum Format { CSV, NDJSON }
+
+    private final JdbcTemplate cursorTemplate;
+    private final TransactionTemplate readTx;
+    private final JsonFactory jsonFactory = new JsonFactory();
+
+    public IncidentExportService(DataSource dataSource,
+                                 PlatformTransactionManager transactionManager,
+                                 @Value("${app.export.fetchSize:2000}") int fetchSize) {
+        this.cursorTemplate = new JdbcTemplate(dataSource);
+        this.cursorTemplate.setFetchSize(fetchSize);
+        // PostgreSQL only honours the fetch size (server-side cursor) with autocommit off
+        this.readTx = new TransactionTemplate(transactionManager);
+        this.readTx.setReadOnly(true);
+    }
+
+    public long export(Format format, Optional<String> status, Optional<String> severity, Optional<String> zone,
+                       Optional<Instant> from, Map<String, String> dataFilter, OutputStream out) throws IOException {
+        StringBuilder sql = new StringBuilder("SELECT ").append(String.join(", ", COLUMNS)).append(" FROM ").append(SOURCE).append(" WHERE 1=1");
+        List<Object> args = new ArrayList<>();
+        status.filter(s -> !s.isBlank()).ifPresent(s -> { sql.append(" AND status = ?"); args.add(s); });
+        severity.filter(s -> !s.isBlank()).ifPresent(s -> { sql.append(" AND severity = ?"); args.add(s); });
+        zone.filter(z -> !z.isBlank()).ifPresent(z -> { sql.append(" AND (location IS NULL OR location LIKE ?)"); args.add(IncidentService.zonePattern(zone)); });
+        from.ifPresent(f -> { sql.append(" AND reported_at >= ?"); args.add(Timestamp.from(f)); });
+        if (!dataFilter.isEmpty()) {
+            sql.append(" AND data @> CAST(? AS jsonb)");
+            args.add(IncidentService.toContainmentJson(dataFilter));
+        }
+        sql.append(" ORDER BY reported_at DESC");
+
+        GZIPOutputStream gzip = new GZIPOutputStream(out, 64 * 1024);
+        Writer writer = new BufferedWriter(new OutputStreamWriter(gzip, StandardCharsets.UTF_8), 64 * 1024);
+        RowSink sink = format == Format.CSV ? new CsvSink(writer) : new NdjsonSink(jsonFactory.createGenerator(writer));
+        long[] rows = {0};
+        try {
+            readTx.executeWithoutResult(txStatus -> cursorTemplate.query(sql.toString(), rs -> {
+                try {
+                    sink.row(rs);
+                    rows[0]++;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }, args.toArray()));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        sink.finish();
+        writer.flush();
+        gzip.finish();
+        log.info("Incidents exported format={} rows={}", format, rows[0]);
+        return rows[0];
+    }
+
+    private interface RowSink {
+        void row(ResultSet rs) throws SQLException, IOException;
+        void finish() throws IOException;
+    }
+
+    private static final class CsvSink implements RowSink {
+        private final Writer w;
+
+        CsvSink(Writer w) throws IOException {
+            this.w = w;
+            w.write(String.join(",", COLUMNS));
+            w.write('\n');
+        }
+
+        @Override
+        public void row(ResultSet rs) throws SQLException, IOException {
+            for (int c = 1; c <= COLUMNS.length; c++) {
+                if (c > 1) w.write(',');
+                String v = c == 8 ? instant(rs.getTimestamp(c)) : rs.getString(c);
+                if (v != null) writeField(v);
+            }
+            w.write('\n');
+        }
+
+        private void writeField(String v) throws IOException {
+            boolean quote = false;
+            for (int i = 0; i < v.length() && !quote; i++) {
+                char ch = v.charAt(i);
+                quote = ch == ',' || ch == '"' || ch == '\n' || ch == '\r';
+            }
+            if (!quote) {
+                w.write(v);
+                return;
+            }
+            w.write('"');
+            w.write(v.replace("\"", "\"\""));
+            w.write('"');
+        }
+
+        @Override
+        public void finish() {}
+    }
+
+    private static final class NdjsonSink implements RowSink {
+        private final JsonGenerator g;
+        private boolean empty = true;
+
+        NdjsonSink(JsonGenerator g) {
+            this.g = g;
+            this.g.setRootValueSeparator(new SerializedString("\n"));
+        }
+
+        @Override
+        public void row(ResultSet rs) throws SQLException, IOException {
+            g.writeStartObject();
+            g.writeStringField("id", rs.getString(1));
+            long number = rs.getLong(2);
+            if (rs.wasNull()) g.writeNullField("incidentNumber"); else g.writeNumberField("incidentNumber", number);
+            g.writeStringField("title", rs.getString(3));
+            g.writeStringField("type", rs.getString(4));
+            g.writeStringField("severity", rs.getString(5));
+            g.writeStringField("status", rs.getString(6));
+            g.writeStringField("location", rs.getString(7));
+            g.writeStringField("reportedAt", instant(rs.getTimestamp(8)));
+            g.writeStringField("assignedTo", rs.getString(9));
+            g.writeStringField("reporterId", rs.getString(10));
+            String data = rs.getString(11);
+            g.writeFieldName("data");
+            // jsonb text from the database is already valid JSON
+            if (data == null) g.writeNull(); else g.writeRawValue(data);
+            g.writeEndObject();
+            empty = false;
+        }
+
+        @Override
+        public void finish() throws IOException {
+            // terminate the last record; an empty export stays an empty body
+            if (!empty) g.writeRaw('\n');
+            g.flush();
+        }
+    }
+
+    private static String instant(Timestamp ts) {
+        return ts == null ? null : ts.toInstant().toString();
+    }
+}
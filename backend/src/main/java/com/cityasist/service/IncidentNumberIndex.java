@@ -0,0 +1,52 @@
+package com.cityasist.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Bounded, bidirectional incidentNumber <-> id mapping. Populated on create and on the first
+ * lookup by number, so number-based routes can go straight to the primary key.
+ */
+@Component
+public class IncidentNumberIndex {
+    private final int maxEntries;
+    private final Map<UUID, Long> idToNumber = new HashMap<>();
+    private final LinkedHashMap<Long, UUID> numberToId;
+
+    public IncidentNumberIndex(@Value("${app.incidents.numberIndex.maxEntries:10000}") int maxEntries) {
+        this.maxEntries = Math.max(1, maxEntries);
+        // access-ordered so the least recently used mapping is evicted first
+        this.numberToId = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, UUID> eldest) {
+                if (size() > IncidentNumberIndex.this.maxEntries) {
+                    idToNumber.remove(eldest.getValue());
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    public synchronized void put(Long number, UUID id) {
+        if (number == null || id == null) return;
+        UUID prevId = numberToId.put(number, id);
+        if (prevId != null && !prevId.equals(id)) idToNumber.remove(prevId);
+        Long prevNumber = idToNumber.put(id, number);
+        if (prevNumber != null && !prevNumber.equals(number)) numberToId.remove(prevNumber);
+    }
+
+    public synchronized UUID idFor(Long number) {
+        return number == null ? null : numberToId.get(number);
+    }
+
+    public synchronized void remove(UUID id) {
+        Long number = idToNumber.remove(id);
+        if (number != null) numberToId.remove(number);
+    }
+}
@@ -6,6 +6,7 @@ import com.cityasist.api.dto.IncidentStatusUpdateRequest;
 import com.cityasist.api.dto.IncidentSeverityUpdateRequest;
 import com.cityasist.domain.Incident;
 import com.cityasist.domain.IncidentTimeline;
+import com.cityasist.repo.IncidentArchiveRepository;
 import com.cityasist.repo.IncidentRepository;
 import com.cityasist.repo.IncidentTimelineRepository;
 import org.springframework.data.domain.Page;
@@ -21,15 +22,36 @@ import java.util.UUID;
 @Service
 public class IncidentService {
     private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(IncidentService.class);
+    private static final com.fasterxml.jackson.databind.ObjectMapper JSON = new com.fasterxml.jackson.databind.ObjectMapper();
     private final IncidentRepository incidentRepository;
     private final IncidentTimelineRepository timelineRepository;
+    private final IncidentNumberIndex numberIndex;
+    private final DispatchEngine dispatchEngine;
+    private final TimelineWriter timelineWriter;
+    private final IncidentArchiveRepository archiveRepository;
+    private final EscalationScheduler escalationScheduler;
+    private final OperatorDirectory operatorDirectory;
 
-    public IncidentService(IncidentRepository incidentRepository, IncidentTimelineRepository timelineRepository) {
+    public IncidentService(IncidentRepository incidentRepository, IncidentTimelineRepository timelineRepository,
+                           IncidentNumberIndex numberIndex, DispatchEngine dispatchEngine, TimelineWriter timelineWriter,
+                           IncidentArchiveRepository archiveRepository, EscalationScheduler escalationScheduler,
+                           OperatorDirectory operatorDirectory) {
         this.incidentRepository = incidentRepository;
+        this.escalationScheduler = escalationScheduler;
+        this.operatorDirectory = operatorDirectory;
         this.timelineRepository = timelineRepository;
+        this.archiveRepository = archiveRepository;
+        this.numberIndex = numberIndex;
+        this.dispatchEngine = dispatchEngine;
+        this.timelineWriter = timelineWriter;
     }
 
-    public Page<Incident> list(Optional<String> status, Optional<String> severity, Optional<String> zone, Optional<Instant> from, int page, int size) {
+    /**
+     * Lists the working set in the hot table, or with archived=true the incidents the archiver has moved out;
+     * both apply the same filters and visibility rules.
+     */
+    public Page<Incident> list(Optional<String> status, Optional<String> severity, Optional<String> zone, Optional<Instant> from,
+                               java.util.Map<String, String> dataFilter, boolean archived, int page, int size) {
         PageRequest pr = PageRequest.of(page, size);
         var auth = org.springframework.security.core.context.SecurityContextHolder.getContext().getAuthentication();
         UUID reporterIdFilter = null;
@@ -40,6 +62,10 @@ public class IncidentService {
                 UUID uid = extractUserId(auth.getPrincipal());
                 if (uid == null) return Page.empty(pr);
                 // Operators only see incidents assigned to them
+                if (archived) {
+                    return archiveRepository.search(null, uid, status.orElse(null), severity.orElse(null), from.orElse(null),
+                            zonePattern(zone), dataFilter.isEmpty() ? null : toContainmentJson(dataFilter), pr);
+                }
                 return incidentRepository.findByAssignedTo(uid, pr);
             }
             if (!isAdmin) {
@@ -52,8 +78,22 @@ public class IncidentService {
         } else {
             return Page.empty(pr);
         }
-        // Always pass a non-null pattern to avoid PostgreSQL type inference issues
-        String zonePattern = zone.filter(z -> !z.isBlank()).map(z -> "%" + z + "%").orElse("%");
+        String zonePattern = zonePattern(zone);
+        if (archived) {
+            return archiveRepository.search(reporterIdFilter, null, status.orElse(null), severity.orElse(null), from.orElse(null),
+                    zonePattern, dataFilter.isEmpty() ? null : toContainmentJson(dataFilter), pr);
+        }
+        if (!dataFilter.isEmpty()) {
+            return incidentRepository.searchByData(
+                    toContainmentJson(dataFilter),
+                    reporterIdFilter != null ? reporterIdFilter.toString() : null,
+                    status.orElse(null),
+                    severity.orElse(null),
+                    from.map(Instant::toString).orElse(null),
+                    zonePattern,
+                    pr
+            );
+        }
         return incidentRepository.search(
                 reporterIdFilter,
                 status.orElse(null),
@@ -65,6 +105,20 @@ public class IncidentService {
         );
     }
 
+    // Always a non-null pattern to avoid PostgreSQL type inference issues
+    static String zonePattern(Optional<String> zone) {
+        return zone.filter(z -> !z.isBlank()).map(z -> "%" + z + "%").orElse("%");
+    }
+
+    // {"key":"value",...}; values are matched as JSON strings, which is how the report form stores them
+    static String toContainmentJson(java.util.Map<String, String> dataFilter) {
+        try {
+            return JSON.writeValueAsString(dataFilter);
+        } catch (com.fasterxml.jackson.core.JsonProcessingException e) {
+            throw new IllegalArgumentException("Invalid data filter", e);
+        }
+    }
+
     private java.util.UUID extractUserId(Object principal) {
         if (principal instanceof java.util.UUID u) return u;
         if (principal instanceof String s) {
@@ -104,20 +158,56 @@ public class IncidentService {
             java.util.UUID uid = extractUserId(auth.getPrincipal());
             if (uid != null) i.setReporterId(uid);
         }
-        Incident saved = incidentRepository.save(i);
+        // flush so the database-generated incident number is available for the index
+        Incident saved = incidentRepository.saveAndFlush(i);
+        numberIndex.put(saved.getIncidentNumber(), saved.getId());
+        dispatchEngine.submit(saved);
+        escalationScheduler.onChanged(saved, saved.getReportedAt());
         log.info("Incident created id={} type={} severity={} status={} reporterId={}", saved.getId(), saved.getType(), saved.getSeverity(), saved.getStatus(), saved.getReporterId());
         return saved;
     }
 
-    public Optional<Incident> get(UUID id) { return incidentRepository.findById(id); }
-    public Optional<Incident> getByNumber(Long num) { return incidentRepository.findByIncidentNumber(num); }
+    // Reads fall through to the archive once an incident has been moved out of the hot table
+    public Optional<Incident> get(UUID id) {
+        return incidentRepository.findById(id).or(() -> archiveRepository.findById(id));
+    }
+
+    public Optional<Incident> getByNumber(Long num) {
+        Optional<Incident> live = findLiveByNumber(num);
+        return live.isPresent() ? live : archiveRepository.findByIncidentNumber(num);
+    }
+
+    private Optional<Incident> findLiveByNumber(Long num) {
+        // Known numbers resolve straight to a primary-key lookup; unknown ones populate the index
+        UUID id = numberIndex.idFor(num);
+        if (id != null) {
+            Optional<Incident> hit = incidentRepository.findById(id);
+            if (hit.isPresent()) return hit;
+            numberIndex.remove(id);
+        }
+        Optional<Incident> found = incidentRepository.findByIncidentNumber(num);
+        found.ifPresent(i -> numberIndex.put(i.getIncidentNumber(), i.getId()));
+        return found;
+    }
 
     @Transactional
     public Incident assign(UUID id, UUID userId) {
-        Incident i = incidentRepository.findById(id).orElseThrow();
+        return assign(incidentRepository.findById(id).orElseThrow(), userId);
+    }
+
+    @Transactional
+    public Optional<Incident> assignByNumber(Long num, UUID userId) {
+        return findLiveByNumber(num).map(i -> assign(i, userId));
+    }
+
+    private Incident assign(Incident i, UUID userId) {
+        UUID previous = i.getAssignedTo();
         i.setAssignedTo(userId);
         Incident saved = incidentRepository.save(i);
-        log.info("Incident assigned id={} assignedTo={}", id, userId);
+        dispatchEngine.onAssigned(saved, previous);
+        operatorDirectory.invalidate();
+        escalationScheduler.onChanged(saved, Instant.now());
+        log.info("Incident assigned id={} assignedTo={}", i.getId(), userId);
         return saved;
     }
 
@@ -131,20 +221,53 @@ public class IncidentService {
         t.setTime(Instant.now());
         t.setActor(req.getActor());
         t.setText(req.getText());
-        IncidentTimeline saved = timelineRepository.save(t);
+        IncidentTimeline saved = timelineWriter.write(t);
         log.info("Timeline added incidentId={} actor={}", incidentId, req.getActor());
         return saved;
     }
 
     public java.util.List<IncidentTimeline> timeline(UUID incidentId) {
-        Incident i = incidentRepository.findById(incidentId).orElseThrow();
+        Optional<Incident> live = incidentRepository.findById(incidentId);
+        if (live.isPresent()) return timeline(live.get());
+        return archivedTimeline(archiveRepository.findById(incidentId).orElseThrow());
+    }
+
+    public Optional<java.util.List<IncidentTimeline>> timelineByNumber(Long num) {
+        Optional<Incident> live = findLiveByNumber(num);
+        if (live.isPresent()) return live.map(this::timeline);
+        return archiveRepository.findByIncidentNumber(num).map(this::archivedTimeline);
+    }
+
+    private java.util.List<IncidentTimeline> archivedTimeline(Incident i) {
         ensureCanView(i);
-        return timelineRepository.findByIncidentIdOrderByTimeAsc(incidentId);
+        return archiveRepository.findTimeline(i.getId());
+    }
+
+    private java.util.List<IncidentTimeline> timeline(Incident i) {
+        ensureCanView(i);
+        // pending first: an entry that has left it by the time of the query below is in the table
+        java.util.List<IncidentTimeline> pending = timelineWriter.pending(i.getId());
+        java.util.List<IncidentTimeline> entries = timelineRepository.findByIncidentIdOrderByTimeAsc(i.getId());
+        if (pending.isEmpty()) return entries;
+        java.util.List<IncidentTimeline> merged = new java.util.ArrayList<>(entries);
+        java.util.Set<UUID> stored = new java.util.HashSet<>();
+        entries.forEach(e -> stored.add(e.getId()));
+        pending.stream().filter(p -> !stored.contains(p.getId())).forEach(merged::add);
+        merged.sort(java.util.Comparator.comparing(IncidentTimeline::getTime));
+        return merged;
     }
 
     @Transactional
     public Incident updateStatus(UUID id, IncidentStatusUpdateRequest req) {
-        Incident i = incidentRepository.findById(id).orElseThrow();
+        return updateStatus(incidentRepository.findById(id).orElseThrow(), req);
+    }
+
+    @Transactional
+    public Optional<Incident> updateStatusByNumber(Long num, IncidentStatusUpdateRequest req) {
+        return findLiveByNumber(num).map(i -> updateStatus(i, req));
+    }
+
+    private Incident updateStatus(Incident i, IncidentStatusUpdateRequest req) {
         var auth = org.springframework.security.core.context.SecurityContextHolder.getContext().getAuthentication();
         boolean isAdmin = auth != null && auth.getAuthorities().stream().anyMatch(a -> a.getAuthority().equals("ROLE_" + com.cityasist.domain.Role.ADMIN.name()));
         boolean isOperator = auth != null && auth.getAuthorities().stream().anyMatch(a -> a.getAuthority().equals("ROLE_" + com.cityasist.domain.Role.OPERATOR.name()));
@@ -154,8 +277,12 @@ public class IncidentService {
                 throw new AccessDeniedException("Not allowed to update this incident");
             }
         }
+        String previousStatus = i.getStatus();
         i.setStatus(req.getStatus());
         Incident saved = incidentRepository.save(i);
+        dispatchEngine.onStatusChanged(saved, previousStatus);
+        if (IncidentStates.isClosed(previousStatus) != IncidentStates.isClosed(saved.getStatus())) operatorDirectory.invalidate();
+        if (!req.getStatus().equalsIgnoreCase(previousStatus)) escalationScheduler.onChanged(saved, Instant.now());
         // Add timeline entry
         IncidentTimeline t = new IncidentTimeline();
         t.setIncident(saved);
@@ -163,27 +290,37 @@ public class IncidentService {
         t.setActor(isAdmin ? "admin" : "operator");
         String note = (req.getText() != null && !req.getText().isBlank()) ? req.getText() : ("Status updated to " + req.getStatus());
         t.setText(note);
-        timelineRepository.save(t);
-        log.info("Incident status updated id={} status={} by={}", id, req.getStatus(), uid);
+        timelineWriter.write(t);
+        log.info("Incident status updated id={} status={} by={}", i.getId(), req.getStatus(), uid);
         return saved;
     }
 
     @Transactional
     public Incident updateSeverity(UUID id, IncidentSeverityUpdateRequest req) {
-        Incident i = incidentRepository.findById(id).orElseThrow();
+        return updateSeverity(incidentRepository.findById(id).orElseThrow(), req);
+    }
+
+    @Transactional
+    public Optional<Incident> updateSeverityByNumber(Long num, IncidentSeverityUpdateRequest req) {
+        return findLiveByNumber(num).map(i -> updateSeverity(i, req));
+    }
+
+    private Incident updateSeverity(Incident i, IncidentSeverityUpdateRequest req) {
         var auth = org.springframework.security.core.context.SecurityContextHolder.getContext().getAuthentication();
         boolean isAdmin = auth != null && auth.getAuthorities().stream().anyMatch(a -> a.getAuthority().equals("ROLE_" + com.cityasist.domain.Role.ADMIN.name()));
         if (!isAdmin) throw new AccessDeniedException("Only admin can update severity");
         i.setSeverity(req.getSeverity());
         Incident saved = incidentRepository.save(i);
+        dispatchEngine.onSeverityChanged(saved);
+        escalationScheduler.onChanged(saved, saved.getReportedAt());
         IncidentTimeline t = new IncidentTimeline();
         t.setIncident(saved);
         t.setTime(Instant.now());
         t.setActor("admin");
         String note = (req.getText() != null && !req.getText().isBlank()) ? req.getText() : ("Severity updated to " + req.getSeverity());
         t.setText(note);
-        timelineRepository.save(t);
-        log.info("Incident severity updated id={} severity={}", id, req.getSeverity());
+        timelineWriter.write(t);
+        log.info("Incident severity updated id={} severity={}", i.getId(), req.getSeverity());
         return saved;
     }
 }
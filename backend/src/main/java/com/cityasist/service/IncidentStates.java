@@ -0,0 +1,26 @@
+package com.cityasist.service;
+
+import java.util.List;
+import java.util.Locale;
+
+public final class IncidentStates {
+    // Statuses after which an incident no longer counts towards anyone's open work
+    public static final List<String> CLOSED_STATUSES = List.of("RESOLVED", "CLOSED", "CANCELLED");
+
+    private IncidentStates() {}
+
+    public static boolean isClosed(String status) {
+        return status != null && CLOSED_STATUSES.contains(status.trim().toUpperCase(Locale.ROOT));
+    }
+
+    // LOW=0 .. CRITICAL=3; unknown severities rank as LOW
+    public static int severityRank(String severity) {
+        if (severity == null) return 0;
+        return switch (severity.trim().toUpperCase(Locale.ROOT)) {
+            case "CRITICAL" -> 3;
+            case "HIGH" -> 2;
+            case "MEDIUM", "MODERATE" -> 1;
+            default -> 0;
+        };
+    }
+}
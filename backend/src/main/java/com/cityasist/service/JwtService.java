@@ -3,6 +3,8 @@ package com.cityasist.service;
 import com.cityasist.domain.Role;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.Jws;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.io.Decoders;
@@ -14,18 +16,32 @@ import javax.crypto.SecretKey;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.Date;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Service
 public class JwtService {
+    private static final int EVICTION_SAMPLE = 16;
+    private static final long SWEEP_INTERVAL_MILLIS = 1000;
+
     private final SecretKey key;
+    private final JwtParser parser;
     private final long accessTtlMinutes;
+    private final int cacheMaxEntries;
+    // Verified tokens -> principal until the token's own expiry. Keyed by the full token string, so a hit
+    // needs an exact match; a truncated hash as key would let a colliding token reuse someone's principal.
+    private final Map<String, Verified> verified = new ConcurrentHashMap<>();
+    private volatile long lastSweepMillis;
 
     public record JwtPrincipal(UUID userId, Role role) {}
 
+    private record Verified(JwtPrincipal principal, long expiresAtMillis) {}
+
     public JwtService(
             @Value("${app.jwt.secret}") String secret,
-            @Value("${app.jwt.accessTokenTtlMinutes}") long accessTtlMinutes
+            @Value("${app.jwt.accessTokenTtlMinutes}") long accessTtlMinutes,
+            @Value("${app.jwt.verifiedCacheSize:20000}") int cacheMaxEntries
     ) {
         // Derive a strong 256-bit key from the provided secret to avoid WeakKeyException on short secrets
         try {
@@ -35,7 +51,9 @@ public class JwtService {
         } catch (Exception e) {
             throw new IllegalStateException("Failed to initialize JWT key", e);
         }
+        this.parser = Jwts.parserBuilder().setSigningKey(key).build();
         this.accessTtlMinutes = accessTtlMinutes;
+        this.cacheMaxEntries = Math.max(0, cacheMaxEntries);
     }
 
     public String generateAccessToken(UUID userId, Role role) {
@@ -50,13 +68,48 @@ public class JwtService {
     }
 
     public JwtPrincipal parseToken(String token) {
+        Verified hit = verified.get(token);
+        if (hit != null) {
+            if (System.currentTimeMillis() < hit.expiresAtMillis()) return hit.principal();
+            verified.remove(token, hit);
+            return null;
+        }
         try {
-            Jws<Claims> jws = Jwts.parserBuilder().setSigningKey(key).build().parseClaimsJws(token);
-            UUID userId = UUID.fromString(jws.getBody().getSubject());
-            Role role = Role.valueOf(jws.getBody().get("role", String.class));
-            return new JwtPrincipal(userId, role);
-        } catch (Exception e) {
+            Jws<Claims> jws = parser.parseClaimsJws(token);
+            Claims claims = jws.getBody();
+            JwtPrincipal principal = new JwtPrincipal(UUID.fromString(claims.getSubject()), Role.valueOf(claims.get("role", String.class)));
+            if (cacheMaxEntries > 0 && claims.getExpiration() != null) remember(token, new Verified(principal, claims.getExpiration().getTime()));
+            return principal;
+        } catch (JwtException | IllegalArgumentException | NullPointerException e) {
             return null;
         }
     }
+
+    private void remember(String token, Verified v) {
+        if (verified.size() >= cacheMaxEntries) {
+            long now = System.currentTimeMillis();
+            // the full sweep runs at most once a second, not on every insert while the cache stays full
+            if (now - lastSweepMillis >= SWEEP_INTERVAL_MILLIS) {
+                lastSweepMillis = now;
+                verified.values().removeIf(e -> e.expiresAtMillis() <= now);
+            }
+            if (verified.size() >= cacheMaxEntries) evictOne();
+        }
+        verified.put(token, v);
+    }
+
+    // Drops the soonest-expiring of a few entries, so churn costs one entry rather than every user's
+    private void evictOne() {
+        String victim = null;
+        long earliest = Long.MAX_VALUE;
+        int sampled = 0;
+        for (var e : verified.entrySet()) {
+            if (e.getValue().expiresAtMillis() < earliest) {
+                earliest = e.getValue().expiresAtMillis();
+                victim = e.getKey();
+            }
+            if (++sampled == EVICTION_SAMPLE) break;
+        }
+        if (victim != null) verified.remove(victim);
+    }
 }
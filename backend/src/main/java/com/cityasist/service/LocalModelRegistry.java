@@ -0,0 +1,104 @@
+package com.cityasist.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Local models loaded from a JSON file (ai-models.json on the classpath unless app.ai.models.file is
+ * set). The file is polled for changes; a new version is compiled completely and then swapped in as one
+ * immutable map, so a bad edit leaves the running models untouched.
+ */
+@Component
+public class LocalModelRegistry {
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(LocalModelRegistry.class);
+    private static final TypeReference<List<FloodModel.Definition>> DEFINITIONS = new TypeReference<>() {};
+    private static final FileTime MISSING = FileTime.fromMillis(Long.MIN_VALUE);
+
+    private record Snapshot(Map<String, FloodModel> models, FloodModel fallback, long generation) {}
+
+    private final ObjectMapper objectMapper;
+    private final Path file;
+    private final String fallbackName;
+    private volatile Snapshot snapshot;
+    private volatile FileTime loadedAt;
+
+    public LocalModelRegistry(ObjectMapper objectMapper,
+                              @Value("${app.ai.models.file:}") String file,
+                              @Value("${app.ai.models.fallback:flood-heuristic}") String fallbackName) throws IOException {
+        this.objectMapper = objectMapper;
+        this.file = file == null || file.isBlank() ? null : Path.of(file);
+        this.fallbackName = fallbackName.trim().toLowerCase(Locale.ROOT);
+        try (InputStream in = new ClassPathResource("ai-models.json").getInputStream()) {
+            this.snapshot = compile(objectMapper.readValue(in, DEFINITIONS), 0);
+        }
+        reloadIfChanged();
+    }
+
+    public FloodModel get(String name) {
+        return name == null ? null : snapshot.models().get(name.trim().toLowerCase(Locale.ROOT));
+    }
+
+    /** The model that answers when none is selected and the remote service is unavailable. */
+    public FloodModel fallback() {
+        return snapshot.fallback();
+    }
+
+    public Collection<FloodModel> all() {
+        return snapshot.models().values();
+    }
+
+    /** Bumped on every swap, so results computed with older definitions can be told apart. */
+    public long generation() {
+        return snapshot.generation();
+    }
+
+    @Scheduled(fixedDelayString = "${app.ai.models.reloadMs:10000}")
+    public void reloadIfChanged() {
+        if (file == null) return;
+        FileTime modified;
+        try {
+            modified = Files.getLastModifiedTime(file);
+        } catch (IOException e) {
+            if (!MISSING.equals(loadedAt)) log.warn("Local model file {} not readable, keeping current models", file);
+            loadedAt = MISSING;
+            return;
+        }
+        if (modified.equals(loadedAt)) return;
+        // remembered even if the load fails, so a broken file is reported once rather than on every poll
+        loadedAt = modified;
+        try {
+            Snapshot next = compile(objectMapper.readValue(file.toFile(), DEFINITIONS), snapshot.generation() + 1);
+            snapshot = next;
+            log.info("Local models loaded file={} models={}", file, next.models().keySet());
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not load local models from {}, keeping current: {}", file, e.getMessage());
+        }
+    }
+
+    private Snapshot compile(List<FloodModel.Definition> definitions, long generation) {
+        Map<String, FloodModel> models = new LinkedHashMap<>();
+        for (FloodModel.Definition d : definitions) {
+            FloodModel m = FloodModel.compile(d);
+            models.put(m.name(), m);
+        }
+        if (models.isEmpty()) throw new IllegalArgumentException("No models defined");
+        FloodModel fallback = models.getOrDefault(fallbackName, models.values().iterator().next());
+        return new Snapshot(Collections.unmodifiableMap(models), fallback, generation);
+    }
+}
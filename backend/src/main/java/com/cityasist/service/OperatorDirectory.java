@@ -0,0 +1,63 @@
+package com.cityasist.service;
+
+import com.cityasist.domain.Role;
+import com.cityasist.repo.OperatorDirectoryRepository;
+import com.cityasist.repo.OperatorDirectoryRepository.OperatorSummary;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cached pages of the operator directory. Operator create/delete, assignment and status changes call
+ * {@link #invalidate()} after commit; a page computed while an invalidation raced it is not stored, and
+ * entries also expire after a TTL to cover writes that bypass the services.
+ */
+@Service
+public class OperatorDirectory {
+    private record Key(Role role, int page, int size) {}
+
+    private record Entry(Page<OperatorSummary> page, long expiresAt) {}
+
+    private final OperatorDirectoryRepository repository;
+    private final long ttlNanos;
+    private final int maxSize;
+    private final Map<Key, Entry> cache = new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong();
+
+    public OperatorDirectory(OperatorDirectoryRepository repository,
+                             @Value("${app.users.directory.cacheTtlSeconds:60}") long ttlSeconds,
+                             @Value("${app.users.directory.maxPageSize:500}") int maxSize) {
+        this.repository = repository;
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(Math.max(1, ttlSeconds));
+        this.maxSize = Math.max(1, maxSize);
+    }
+
+    public Page<OperatorSummary> page(Role role, int page, int size) {
+        Key key = new Key(role, Math.max(0, page), Math.min(Math.max(1, size), maxSize));
+        long now = System.nanoTime();
+        Entry e = cache.get(key);
+        if (e != null && now - e.expiresAt() < 0) return e.page();
+        long gen = generation.get();
+        PageRequest request = PageRequest.of(key.page(), key.size());
+        Page<OperatorSummary> result = new PageImpl<>(
+                repository.findPage(role, IncidentStates.CLOSED_STATUSES, key.size(), request.getOffset()),
+                request, repository.count(role));
+        if (generation.get() == gen) cache.put(key, new Entry(result, System.nanoTime() + ttlNanos));
+        return result;
+    }
+
+    /** Drops every cached page once the current transaction (if any) commits. */
+    public void invalidate() {
+        AfterCommit.run(() -> {
+            generation.incrementAndGet();
+            cache.clear();
+        });
+    }
+}
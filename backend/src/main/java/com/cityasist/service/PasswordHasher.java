@@ -0,0 +1,104 @@
+package com.cityasist.service;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Runs password hashing on a dedicated pool sized to the cores rather than on request threads, so a
+ * login burst can only occupy that many cores. The wait queue is bounded; once it is full, callers get
+ * an immediate 429 instead of piling up Tomcat workers that unrelated requests need.
+ */
+@Component
+public class PasswordHasher {
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(PasswordHasher.class);
+    private static final Pattern BCRYPT_COST = Pattern.compile("^\\$2[abxy]?\\$(\\d{2})\\$");
+
+    private final PasswordEncoder encoder;
+    private final ThreadPoolExecutor pool;
+    private final long waitMs;
+    private final int bcryptStrength;
+
+    public PasswordHasher(PasswordEncoder encoder,
+                          @Value("${app.security.bcryptStrength:10}") int bcryptStrength,
+                          @Value("${app.security.passwordHashing.threads:0}") int threads,
+                          @Value("${app.security.passwordHashing.queueCapacity:64}") int queueCapacity,
+                          @Value("${app.security.passwordHashing.waitMs:5000}") long waitMs) {
+        this.encoder = encoder;
+        this.bcryptStrength = bcryptStrength;
+        int size = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger n = new AtomicInteger();
+        this.pool = new ThreadPoolExecutor(size, size, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)),
+                r -> {
+                    Thread t = new Thread(r, "password-hash-" + n.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        this.waitMs = Math.max(1, waitMs);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        pool.shutdownNow();
+    }
+
+    public String hash(String raw) {
+        return run(() -> encoder.encode(raw));
+    }
+
+    public boolean matches(String raw, String hash) {
+        return run(() -> encoder.matches(raw, hash));
+    }
+
+    /** True when the hash was made with a different cost than the one configured now. */
+    public boolean needsRehash(String hash) {
+        // upgradeEncoding only flags a lower cost; lowering the configured cost should rehash too
+        if (hash == null) return false;
+        Matcher m = BCRYPT_COST.matcher(hash);
+        return !m.find() || Integer.parseInt(m.group(1)) != bcryptStrength;
+    }
+
+    private <T> T run(Callable<T> task) {
+        Future<T> future;
+        try {
+            future = pool.submit(task);
+        } catch (RejectedExecutionException e) {
+            log.warn("Password hashing queue full active={} queued={}", pool.getActiveCount(), pool.getQueue().size());
+            throw busy();
+        }
+        try {
+            return future.get(waitMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw busy();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while hashing password");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException re) throw re;
+            throw new IllegalStateException("Password hashing failed", e.getCause());
+        }
+    }
+
+    private static ResponseStatusException busy() {
+        return new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS, "Too many sign-in attempts right now, please retry shortly");
+    }
+}
@@ -0,0 +1,168 @@
+package com.cityasist.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Short-lived cache of prediction results keyed on the model plus its input features, with numeric
+ * features rounded to a per-feature step so near-identical requests (every map refresh of a zone) share
+ * an entry. Concurrent misses for the same key are collapsed into one computation.
+ */
+@Component
+public class PredictionCache {
+    private final boolean enabled;
+    private final long ttlNanos;
+    private final int maxEntries;
+    private final double defaultStep;
+    private final Map<String, Double> steps = new HashMap<>();
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Map<String, CompletableFuture<Map<String, Object>>> inFlight = new ConcurrentHashMap<>();
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter shared;
+
+    private record Entry(Map<String, Object> value, long expiresAt) {}
+
+    public PredictionCache(@Value("${app.ai.cache.enabled:true}") boolean enabled,
+                           @Value("${app.ai.cache.ttlSeconds:60}") long ttlSeconds,
+                           @Value("${app.ai.cache.maxEntries:10000}") int maxEntries,
+                           @Value("${app.ai.cache.defaultStep:0.01}") double defaultStep,
+                           @Value("${app.ai.cache.steps:rainfall_mm=1,river_level_m=0.05,soil_moisture_percent=1,pm25=1,pm10=2}") String steps,
+                           MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(Math.max(1, ttlSeconds));
+        this.maxEntries = Math.max(1, maxEntries);
+        this.defaultStep = defaultStep;
+        for (String part : steps.split(",")) {
+            String[] kv = part.split("=", 2);
+            if (kv.length == 2 && !kv[0].isBlank()) this.steps.put(kv[0].trim(), Double.parseDouble(kv[1].trim()));
+        }
+        this.hits = Counter.builder("ai.cache.requests").tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder("ai.cache.requests").tag("result", "miss").register(meterRegistry);
+        this.shared = Counter.builder("ai.cache.requests").tag("result", "shared").register(meterRegistry);
+        Gauge.builder("ai.cache.size", entries, Map::size).register(meterRegistry);
+    }
+
+    public Map<String, Object> get(String model, Map<String, Object> features, Supplier<Map<String, Object>> compute) {
+        return get(model, features, compute, value -> true);
+    }
+
+    /**
+     * Like {@link #get(String, Map, Supplier)}, but only stores results {@code cacheable} accepts; the
+     * others are still handed to callers waiting on the same computation.
+     */
+    public Map<String, Object> get(String model, Map<String, Object> features, Supplier<Map<String, Object>> compute,
+                                   Predicate<Map<String, Object>> cacheable) {
+        if (!enabled) return compute.get();
+        String key = key(model, features);
+        long now = System.nanoTime();
+        Entry e = entries.get(key);
+        if (e != null && now - e.expiresAt() < 0) {
+            hits.increment();
+            return e.value();
+        }
+        CompletableFuture<Map<String, Object>> mine = new CompletableFuture<>();
+        CompletableFuture<Map<String, Object>> running = inFlight.putIfAbsent(key, mine);
+        if (running != null) {
+            shared.increment();
+            return await(running, compute);
+        }
+        misses.increment();
+        try {
+            Map<String, Object> value = compute.get();
+            Map<String, Object> frozen = value != null ? Collections.unmodifiableMap(value) : null;
+            if (frozen != null && cacheable.test(frozen)) put(key, new Entry(frozen, System.nanoTime() + ttlNanos));
+            mine.complete(frozen);
+            return frozen;
+        } catch (RuntimeException ex) {
+            mine.completeExceptionally(ex);
+            throw ex;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    /**
+     * Serves a fresh entry like {@link #get}, but a miss is computed by this caller alone: it neither joins
+     * nor leads an in-flight computation. For callers whose answer depends on their own deadline, which a
+     * shared computation started for someone else would not respect. Results {@code cacheable} accepts are
+     * stored.
+     */
+    public Map<String, Object> getUnshared(String model, Map<String, Object> features, Supplier<Map<String, Object>> compute,
+                                           Predicate<Map<String, Object>> cacheable) {
+        if (!enabled) return compute.get();
+        String key = key(model, features);
+        Entry e = entries.get(key);
+        if (e != null && System.nanoTime() - e.expiresAt() < 0) {
+            hits.increment();
+            return e.value();
+        }
+        misses.increment();
+        Map<String, Object> value = compute.get();
+        Map<String, Object> frozen = value != null ? Collections.unmodifiableMap(value) : null;
+        if (frozen != null && cacheable.test(frozen)) put(key, new Entry(frozen, System.nanoTime() + ttlNanos));
+        return frozen;
+    }
+
+    private Map<String, Object> await(CompletableFuture<Map<String, Object>> running, Supplier<Map<String, Object>> compute) {
+        try {
+            return running.get();
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            return compute.get();
+        } catch (ExecutionException ee) {
+            // the leader failed; let this caller try on its own
+            return compute.get();
+        }
+    }
+
+    private void put(String key, Entry entry) {
+        if (entries.size() >= maxEntries) {
+            long now = System.nanoTime();
+            entries.values().removeIf(e -> now - e.expiresAt() >= 0);
+            if (entries.size() >= maxEntries) entries.clear();
+        }
+        entries.put(key, entry);
+    }
+
+    private String key(String model, Map<String, Object> features) {
+        StringBuilder sb = new StringBuilder(model);
+        Map<String, Object> sorted = features != null ? new TreeMap<>(features) : Map.of();
+        sorted.forEach((name, v) -> {
+            if (name.startsWith("_")) return;
+            sb.append('|').append(name).append('=');
+            Double d = v instanceof Number n ? Double.valueOf(n.doubleValue()) : parse(v);
+            if (d != null && !d.isNaN()) {
+                double step = steps.getOrDefault(name, defaultStep);
+                sb.append(step > 0 ? Math.round(d / step) * step : d);
+            } else if (v != null) {
+                sb.append(String.valueOf(v).trim().toLowerCase(Locale.ROOT));
+            }
+        });
+        return sb.toString();
+    }
+
+    private static Double parse(Object v) {
+        if (v == null) return null;
+        try {
+            return Double.parseDouble(String.valueOf(v).trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.cityasist.service;
+
+import com.cityasist.domain.Role;
+import com.cityasist.repo.RefreshTokenRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Issues, rotates and sweeps refresh tokens. Only SHA-256 digests are stored. Rotation consumes the
+ * presented token and inserts its replacement in one statement that also returns the owner's role.
+ * Digests of recently consumed tokens are kept in memory, so a replayed token is turned away without
+ * touching the database.
+ */
+@Component
+public class RefreshTokens {
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(RefreshTokens.class);
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    public record Issued(String token, UUID userId, Role role) {}
+
+    private final RefreshTokenRepository repository;
+    private final long ttlDays;
+    private final int sweepBatchSize;
+    private final Map<String, Long> consumed;
+
+    public RefreshTokens(RefreshTokenRepository repository,
+                         @Value("${app.jwt.refreshTokenTtlDays}") long ttlDays,
+                         @Value("${app.auth.refreshTokens.consumedIndexSize:10000}") int consumedIndexSize,
+                         @Value("${app.auth.refreshTokens.sweepBatchSize:1000}") int sweepBatchSize) {
+        this.repository = repository;
+        this.ttlDays = ttlDays;
+        this.sweepBatchSize = Math.max(1, sweepBatchSize);
+        int max = Math.max(1, consumedIndexSize);
+        this.consumed = new LinkedHashMap<>(256) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+                return size() > max || eldest.getValue() < System.currentTimeMillis();
+            }
+        };
+    }
+
+    public String issue(UUID userId, Role role) {
+        String token = newToken();
+        repository.insert(userId, role, digest(token), expiry());
+        return token;
+    }
+
+    /** Swaps a valid token for a new one; empty when the token is unknown, expired, revoked or already used. */
+    public Optional<Issued> rotate(String token) {
+        String hash = digest(token);
+        synchronized (consumed) {
+            if (consumed.containsKey(hash)) {
+                log.warn("Refresh token reuse rejected");
+                return Optional.empty();
+            }
+        }
+        String next = newToken();
+        var owner = repository.rotate(hash, digest(next), expiry());
+        if (owner.isEmpty()) return Optional.empty();
+        synchronized (consumed) {
+            consumed.put(hash, expiry().toEpochMilli());
+        }
+        return Optional.of(new Issued(next, owner.get().userId(), owner.get().role()));
+    }
+
+    @Scheduled(fixedDelayString = "${app.auth.refreshTokens.sweepIntervalMs:3600000}", initialDelayString = "${app.auth.refreshTokens.sweepIntervalMs:3600000}")
+    public void sweep() {
+        int total = 0;
+        int deleted;
+        do {
+            deleted = repository.deleteExpiredBatch(sweepBatchSize);
+            total += deleted;
+        } while (deleted == sweepBatchSize);
+        if (total > 0) log.info("Expired refresh tokens deleted count={}", total);
+    }
+
+    private Instant expiry() {
+        return Instant.now().plus(ttlDays, ChronoUnit.DAYS);
+    }
+
+    private static String newToken() {
+        byte[] bytes = new byte[32];
+        RANDOM.nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    private static String digest(String token) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package com.cityasist.service;
+
+import com.cityasist.domain.IncidentTimeline;
+import com.cityasist.repo.IncidentTimelineRepository;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Persists incident timeline entries either synchronously (default) or write-behind.
+ *
+ * Durability in write-behind mode: an entry is queued only after the incident change that produced it
+ * has committed, so a rolled back request never leaves a timeline row behind. Entries still in the queue
+ * are lost if the process dies before the next flush (at most flushIntervalMs or batchSize entries);
+ * a graceful shutdown drains the queue. A batch the database rejects is retried maxRetries times with
+ * growing backoff, then written row by row, so only rows that fail on their own (say, the incident was
+ * deleted meanwhile) are dropped, each with an error log. When the queue is full, onQueueFull decides
+ * whether the caller writes the entry itself ("write-through") or waits for space ("block").
+ *
+ * Readers see an entry from the moment it is queued until its flush commits, including while its batch
+ * is being written, so a request reading back the timeline right after changing an incident sees its own
+ * entries.
+ */
+@Component
+public class TimelineWriter {
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(TimelineWriter.class);
+    private static final String INSERT_SQL =
+            "INSERT INTO incident_timeline (id, incident_id, time, actor, text) VALUES (?, ?, ?, ?, ?)";
+
+    private final IncidentTimelineRepository timelineRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate writeTx;
+    private final boolean writeBehind;
+    private final int batchSize;
+    private final long flushIntervalMs;
+    private final boolean blockWhenFull;
+    private final int maxRetries;
+    private final long retryBackoffMs;
+    private final BlockingQueue<Entry> queue;
+    // Entries not yet committed to the database, by incident: from enqueue until their flush commits
+    private final Map<UUID, Set<Entry>> unflushed = new ConcurrentHashMap<>();
+    private final Thread writer;
+    private volatile boolean running = true;
+
+    record Entry(UUID id, UUID incidentId, Instant time, String actor, String text) {}
+
+    public TimelineWriter(IncidentTimelineRepository timelineRepository,
+                          JdbcTemplate jdbcTemplate,
+                          PlatformTransactionManager transactionManager,
+                          @Value("${app.timeline.writeBehind.enabled:false}") boolean writeBehind,
+                          @Value("${app.timeline.writeBehind.queueCapacity:10000}") int queueCapacity,
+                          @Value("${app.timeline.writeBehind.batchSize:200}") int batchSize,
+                          @Value("${app.timeline.writeBehind.flushIntervalMs:5}") long flushIntervalMs,
+                          @Value("${app.timeline.writeBehind.onQueueFull:write-through}") String onQueueFull,
+                          @Value("${app.timeline.writeBehind.maxRetries:3}") int maxRetries,
+                          @Value("${app.timeline.writeBehind.retryBackoffMs:200}") long retryBackoffMs) {
+        this.timelineRepository = timelineRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.writeTx = new TransactionTemplate(transactionManager);
+        this.writeTx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.writeBehind = writeBehind;
+        this.batchSize = Math.max(1, batchSize);
+        this.flushIntervalMs = Math.max(1, flushIntervalMs);
+        this.blockWhenFull = "block".equalsIgnoreCase(onQueueFull);
+        this.maxRetries = Math.max(0, maxRetries);
+        this.retryBackoffMs = Math.max(0, retryBackoffMs);
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, queueCapacity));
+        if (writeBehind) {
+            this.writer = new Thread(this::runWriter, "timeline-writer");
+            this.writer.setDaemon(true);
+            this.writer.start();
+        } else {
+            this.writer = null;
+        }
+    }
+
+    public IncidentTimeline write(IncidentTimeline t) {
+        if (!writeBehind) return timelineRepository.save(t);
+        t.setId(UUID.randomUUID());
+        Entry e = new Entry(t.getId(), t.getIncident().getId(), t.getTime(), t.getActor(), t.getText());
+        AfterCommit.run(() -> enqueue(e));
+        return t;
+    }
+
+    /**
+     * Entries for the incident that are queued or being flushed, so readers see their own writes. Call it
+     * before reading the table: an entry that is gone from here by then has committed.
+     */
+    public List<IncidentTimeline> pending(UUID incidentId) {
+        if (!writeBehind) return List.of();
+        Set<Entry> entries = unflushed.get(incidentId);
+        if (entries == null) return List.of();
+        List<IncidentTimeline> out = new ArrayList<>();
+        for (Entry e : entries) {
+            IncidentTimeline t = new IncidentTimeline();
+            t.setId(e.id());
+            t.setTime(e.time());
+            t.setActor(e.actor());
+            t.setText(e.text());
+            out.add(t);
+        }
+        return out;
+    }
+
+    private void enqueue(Entry e) {
+        track(e);
+        if (queue.offer(e)) return;
+        if (blockWhenFull) {
+            try {
+                queue.put(e);
+                return;
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        log.debug("Timeline queue full, writing through incidentId={}", e.incidentId());
+        try {
+            flush(List.of(e));
+        } finally {
+            untrack(e);
+        }
+    }
+
+    private void track(Entry e) {
+        unflushed.compute(e.incidentId(), (id, entries) -> {
+            Set<Entry> s = entries != null ? entries : ConcurrentHashMap.newKeySet();
+            s.add(e);
+            return s;
+        });
+    }
+
+    private void untrack(Entry e) {
+        unflushed.computeIfPresent(e.incidentId(), (id, entries) -> {
+            entries.remove(e);
+            return entries.isEmpty() ? null : entries;
+        });
+    }
+
+    private void runWriter() {
+        List<Entry> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                Entry first = queue.poll(flushIntervalMs, TimeUnit.MILLISECONDS);
+                if (first == null) continue;
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                flushWithRetry(batch);
+            } catch (InterruptedException ie) {
+                // shutdown: loop drains what is left
+                running = false;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void flushWithRetry(List<Entry> batch) {
+        for (int attempt = 1; attempt <= maxRetries + 1; attempt++) {
+            try {
+                flush(batch);
+                batch.forEach(this::untrack);
+                return;
+            } catch (RuntimeException ex) {
+                log.warn("Timeline batch write failed attempt={} entries={}: {}", attempt, batch.size(), ex.getMessage());
+                if (attempt <= maxRetries && !backoff(retryBackoffMs * attempt)) break;
+            }
+        }
+        // Isolate the rows the database won't take, so one bad row doesn't cost the whole batch
+        for (Entry e : batch) {
+            try {
+                flush(List.of(e));
+            } catch (RuntimeException ex) {
+                log.error("Timeline entry dropped id={} incidentId={}: {}", e.id(), e.incidentId(), ex.getMessage());
+            } finally {
+                untrack(e);
+            }
+        }
+    }
+
+    private boolean backoff(long millis) {
+        try {
+            Thread.sleep(millis);
+            return true;
+        } catch (InterruptedException ie) {
+            // shutdown: stop waiting, the remaining writes still run
+            running = false;
+            return false;
+        }
+    }
+
+    private void flush(List<Entry> entries) {
+        writeTx.executeWithoutResult(status -> jdbcTemplate.batchUpdate(INSERT_SQL, entries, entries.size(), (ps, e) -> {
+            ps.setObject(1, e.id());
+            ps.setObject(2, e.incidentId());
+            ps.setTimestamp(3, Timestamp.from(e.time()));
+            ps.setString(4, e.actor());
+            ps.setString(5, e.text());
+        }));
+    }
+
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        if (writer == null) return;
+        running = false;
+        writer.join(TimeUnit.SECONDS.toMillis(10));
+    }
+}
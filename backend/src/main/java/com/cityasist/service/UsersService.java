@@ -3,22 +3,27 @@ package com.cityasist.service;
 import com.cityasist.api.dto.OperatorCreateRequest;
 import com.cityasist.domain.Role;
 import com.cityasist.domain.User;
+import com.cityasist.repo.OperatorDirectoryRepository.OperatorSummary;
 import com.cityasist.repo.UserRepository;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.data.domain.Page;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.List;
 import java.util.UUID;
 
 @Service
 public class UsersService {
     private final UserRepository userRepository;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHasher passwordHasher;
+    private final DispatchEngine dispatchEngine;
+    private final OperatorDirectory operatorDirectory;
 
-    public UsersService(UserRepository userRepository, PasswordEncoder passwordEncoder) {
+    public UsersService(UserRepository userRepository, PasswordHasher passwordHasher, DispatchEngine dispatchEngine,
+                        OperatorDirectory operatorDirectory) {
         this.userRepository = userRepository;
-        this.passwordEncoder = passwordEncoder;
+        this.passwordHasher = passwordHasher;
+        this.dispatchEngine = dispatchEngine;
+        this.operatorDirectory = operatorDirectory;
     }
 
     @Transactional
@@ -30,16 +35,22 @@ public class UsersService {
         u.setName(req.getName());
         u.setEmail(req.getEmail());
         u.setRole(Role.OPERATOR);
-        u.setPasswordHash(passwordEncoder.encode(req.getPassword()));
-        return userRepository.save(u);
+        u.setZone(req.getZone());
+        u.setPasswordHash(passwordHasher.hash(req.getPassword()));
+        User saved = userRepository.save(u);
+        dispatchEngine.onOperatorCreated(saved);
+        operatorDirectory.invalidate();
+        return saved;
     }
 
-    public List<User> listByRole(Role role) {
-        return userRepository.findAll().stream().filter(u -> u.getRole() == role).toList();
+    public Page<OperatorSummary> listByRole(Role role, int page, int size) {
+        return operatorDirectory.page(role, page, size);
     }
 
     @Transactional
     public void delete(UUID id) {
         userRepository.deleteById(id);
+        dispatchEngine.onUserDeleted(id);
+        operatorDirectory.invalidate();
     }
 }
@@ -0,0 +1,92 @@
+package com.cityasist.service;
+
+import com.cityasist.domain.Alert;
+import com.cityasist.repo.ZoneSubscriptionRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Zones each user wants alerts for, held in memory in both directions: user to zones for filtering
+ * what a user sees, zone to users for delivering a new alert only to its subscribers. A user with no
+ * subscriptions receives every alert, and alerts without a zone go to everyone.
+ */
+@Component
+public class ZoneSubscriptions {
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(ZoneSubscriptions.class);
+
+    private final ZoneSubscriptionRepository repository;
+    private final Map<UUID, Set<String>> zonesByUser = new ConcurrentHashMap<>();
+    private final Map<String, Set<UUID>> usersByZone = new ConcurrentHashMap<>();
+
+    public ZoneSubscriptions(ZoneSubscriptionRepository repository) {
+        this.repository = repository;
+    }
+
+    /** Normalized zone key; null for blank, which means citywide. */
+    public static String key(String zone) {
+        return zone == null || zone.isBlank() ? null : zone.trim().toLowerCase(Locale.ROOT);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void load() {
+        var rows = repository.findAll();
+        rows.forEach(s -> index(s.userId(), key(s.zone())));
+        log.info("Zone subscriptions loaded users={} rows={}", zonesByUser.size(), rows.size());
+    }
+
+    /** Zones the user subscribed to; empty means all zones. */
+    public Set<String> zonesOf(UUID userId) {
+        return zonesByUser.getOrDefault(userId, Set.of());
+    }
+
+    /** Users subscribed to the zone; users without subscriptions get every zone and are not listed. */
+    public Set<UUID> subscribersOf(String zone) {
+        String k = key(zone);
+        return k == null ? Set.of() : usersByZone.getOrDefault(k, Set.of());
+    }
+
+    public boolean isRelevant(UUID userId, Alert alert) {
+        String k = key(alert.getZone());
+        if (k == null) return true;
+        Set<String> zones = zonesOf(userId);
+        return zones.isEmpty() || zones.contains(k);
+    }
+
+    @Transactional
+    public Set<String> replace(UUID userId, Collection<String> zones) {
+        Set<String> keys = new TreeSet<>();
+        if (zones != null) zones.stream().map(ZoneSubscriptions::key).filter(k -> k != null).forEach(keys::add);
+        repository.replace(userId, keys);
+        AfterCommit.run(() -> reindex(userId, keys));
+        return keys;
+    }
+
+    private synchronized void reindex(UUID userId, Set<String> keys) {
+        Set<String> previous = zonesByUser.remove(userId);
+        if (previous != null) {
+            for (String zone : previous) {
+                usersByZone.computeIfPresent(zone, (z, users) -> {
+                    users.remove(userId);
+                    return users.isEmpty() ? null : users;
+                });
+            }
+        }
+        keys.forEach(k -> index(userId, k));
+    }
+
+    private void index(UUID userId, String zone) {
+        if (zone == null) return;
+        zonesByUser.computeIfAbsent(userId, u -> ConcurrentHashMap.newKeySet()).add(zone);
+        usersByZone.computeIfAbsent(zone, z -> ConcurrentHashMap.newKeySet()).add(userId);
+    }
+}
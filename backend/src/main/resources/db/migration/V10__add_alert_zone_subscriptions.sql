@@ -0,0 +1,7 @@
+-- Zones a user wants alerts for; a user with no rows receives alerts for every zone
+CREATE TABLE IF NOT EXISTS user_zone_subscriptions (
+    user_id UUID NOT NULL REFERENCES users(id) ON DELETE CASCADE,
+    zone VARCHAR(128) NOT NULL,
+    PRIMARY KEY (user_id, zone)
+);
+CREATE INDEX IF NOT EXISTS idx_user_zone_subscriptions_zone ON user_zone_subscriptions(zone);
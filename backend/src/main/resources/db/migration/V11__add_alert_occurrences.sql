@@ -0,0 +1,4 @@
+-- Repeats of the same (type, zone, severity) merged into one alert by the storm guard
+ALTER TABLE alerts ADD COLUMN IF NOT EXISTS occurrences INT NOT NULL DEFAULT 1;
+ALTER TABLE alerts ADD COLUMN IF NOT EXISTS last_seen_at TIMESTAMPTZ;
+CREATE INDEX IF NOT EXISTS idx_alerts_type_zone_severity ON alerts(type, zone, severity, seq DESC);
@@ -0,0 +1,11 @@
+-- Refresh tokens are stored as SHA-256 hex digests, with the user's role so refresh needs no users lookup
+ALTER TABLE refresh_tokens ADD COLUMN IF NOT EXISTS token_hash VARCHAR(64);
+ALTER TABLE refresh_tokens ADD COLUMN IF NOT EXISTS role VARCHAR(32);
+UPDATE refresh_tokens SET token_hash = encode(sha256(convert_to(token, 'UTF8')), 'hex') WHERE token_hash IS NULL;
+UPDATE refresh_tokens r SET role = u.role FROM users u WHERE u.id = r.user_id AND r.role IS NULL;
+DELETE FROM refresh_tokens WHERE role IS NULL;
+ALTER TABLE refresh_tokens ALTER COLUMN token_hash SET NOT NULL;
+ALTER TABLE refresh_tokens ALTER COLUMN role SET NOT NULL;
+CREATE UNIQUE INDEX IF NOT EXISTS ux_refresh_tokens_token_hash ON refresh_tokens(token_hash);
+CREATE INDEX IF NOT EXISTS idx_refresh_tokens_expires_at ON refresh_tokens(expires_at);
+ALTER TABLE refresh_tokens DROP COLUMN IF EXISTS token;
@@ -0,0 +1,3 @@
+-- Operator directory: page users of one role by name, and count open incidents per assignee
+CREATE INDEX IF NOT EXISTS idx_users_role_name ON users(role, name, id);
+CREATE INDEX IF NOT EXISTS idx_incidents_assigned_to ON incidents(assigned_to) WHERE assigned_to IS NOT NULL;
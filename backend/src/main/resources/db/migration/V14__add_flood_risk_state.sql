@@ -0,0 +1,7 @@
+-- Zones whose flood risk is at or above the alert threshold, so a restart doesn't raise their crossing alert again
+CREATE TABLE IF NOT EXISTS flood_risk_state (
+    zone VARCHAR(128) PRIMARY KEY,
+    above_threshold BOOLEAN NOT NULL,
+    probability DOUBLE PRECISION,
+    updated_at TIMESTAMPTZ NOT NULL DEFAULT now()
+);
@@ -0,0 +1,6 @@
+-- AQI engine polls sensor_timeseries in ingest order; writers set their own event time, so rows can
+-- arrive with a time older than readings already seen. Existing rows take the migration time without a
+-- table rewrite; new rows the time of their insert.
+ALTER TABLE sensor_timeseries ADD COLUMN IF NOT EXISTS ingested_at TIMESTAMPTZ NOT NULL DEFAULT now();
+ALTER TABLE sensor_timeseries ALTER COLUMN ingested_at SET DEFAULT clock_timestamp();
+CREATE INDEX IF NOT EXISTS idx_timeseries_ingested_at_id ON sensor_timeseries(ingested_at, id);
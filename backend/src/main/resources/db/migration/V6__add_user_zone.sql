@@ -0,0 +1,2 @@
+-- Home zone of an operator, used by the dispatch engine to prefer nearby operators
+ALTER TABLE users ADD COLUMN IF NOT EXISTS zone VARCHAR(128);
@@ -0,0 +1,2 @@
+-- Containment queries (data @> '{"key":"value"}') on the report payload use this index
+CREATE INDEX IF NOT EXISTS idx_incidents_data_gin ON incidents USING GIN (data jsonb_path_ops);
@@ -0,0 +1,39 @@
+-- Cold storage for resolved/closed incidents moved out of the hot tables by the archiver.
+-- Incidents are range-partitioned by report time (yearly partitions are created on demand,
+-- anything else lands in the default partition); timeline rows are hash-partitioned by
+-- incident so a per-incident lookup touches a single partition.
+CREATE TABLE IF NOT EXISTS incidents_archive (
+    id UUID NOT NULL,
+    incident_number BIGINT,
+    title VARCHAR(255) NOT NULL,
+    type VARCHAR(64) NOT NULL,
+    severity VARCHAR(32) NOT NULL,
+    status VARCHAR(32) NOT NULL,
+    location TEXT,
+    reported_at TIMESTAMPTZ NOT NULL,
+    assigned_to UUID NULL,
+    reporter_id UUID NULL,
+    data JSONB,
+    archived_at TIMESTAMPTZ NOT NULL DEFAULT now(),
+    PRIMARY KEY (id, reported_at)
+) PARTITION BY RANGE (reported_at);
+
+CREATE TABLE IF NOT EXISTS incidents_archive_default PARTITION OF incidents_archive DEFAULT;
+CREATE INDEX IF NOT EXISTS idx_incidents_archive_id ON incidents_archive(id);
+CREATE INDEX IF NOT EXISTS idx_incidents_archive_number ON incidents_archive(incident_number);
+CREATE INDEX IF NOT EXISTS idx_incidents_archive_data_gin ON incidents_archive USING GIN (data jsonb_path_ops);
+
+CREATE TABLE IF NOT EXISTS incident_timeline_archive (
+    id UUID NOT NULL,
+    incident_id UUID NOT NULL,
+    time TIMESTAMPTZ NOT NULL,
+    actor VARCHAR(255) NOT NULL,
+    text TEXT NOT NULL,
+    PRIMARY KEY (id, incident_id)
+) PARTITION BY HASH (incident_id);
+
+CREATE TABLE IF NOT EXISTS incident_timeline_archive_p0 PARTITION OF incident_timeline_archive FOR VALUES WITH (MODULUS 4, REMAINDER 0);
+CREATE TABLE IF NOT EXISTS incident_timeline_archive_p1 PARTITION OF incident_timeline_archive FOR VALUES WITH (MODULUS 4, REMAINDER 1);
+CREATE TABLE IF NOT EXISTS incident_timeline_archive_p2 PARTITION OF incident_timeline_archive FOR VALUES WITH (MODULUS 4, REMAINDER 2);
+CREATE TABLE IF NOT EXISTS incident_timeline_archive_p3 PARTITION OF incident_timeline_archive FOR VALUES WITH (MODULUS 4, REMAINDER 3);
+CREATE INDEX IF NOT EXISTS idx_timeline_archive_incident ON incident_timeline_archive(incident_id, time);
@@ -0,0 +1,21 @@
+-- Creation-ordered sequence number per alert; read state is tracked against it. Values come from a
+-- sequence, so they have gaps (rolled back inserts, cached values lost on restart).
+ALTER TABLE alerts ADD COLUMN IF NOT EXISTS seq BIGINT;
+CREATE SEQUENCE IF NOT EXISTS alerts_seq_seq OWNED BY alerts.seq;
+UPDATE alerts a SET seq = o.rn
+FROM (SELECT id, row_number() OVER (ORDER BY created_at, id) AS rn FROM alerts) o
+WHERE a.id = o.id AND a.seq IS NULL;
+SELECT setval('alerts_seq_seq', COALESCE((SELECT max(seq) FROM alerts), 0) + 1, false);
+ALTER TABLE alerts ALTER COLUMN seq SET DEFAULT nextval('alerts_seq_seq');
+ALTER TABLE alerts ALTER COLUMN seq SET NOT NULL;
+CREATE UNIQUE INDEX IF NOT EXISTS ux_alerts_seq ON alerts(seq);
+
+-- Per-user read state: every alert with seq <= watermark is read, read_bits holds reads above it
+-- (bit i = seq watermark + 1 + i). Replaces one alert_reads row per (user, alert); legacy rows are
+-- folded in and deleted the first time a user's state is loaded.
+CREATE TABLE IF NOT EXISTS alert_read_state (
+    user_id UUID PRIMARY KEY,
+    watermark BIGINT NOT NULL DEFAULT 0,
+    read_bits BYTEA,
+    updated_at TIMESTAMPTZ NOT NULL DEFAULT now()
+);
@@ -0,0 +1,65 @@
+package com.cityasist.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RateLimiterTest {
+    @Test
+    void admitsBurstThenAsksToWaitAboutOneInterval() {
+        // 1/s with a burst of 3: the fourth immediate request must wait close to a second
+        RateLimiter limiter = new RateLimiter(true, 1, 3, 2, "", 1000);
+        UUID user = UUID.randomUUID();
+        for (int i = 0; i < 3; i++) assertEquals(0, limiter.tryAcquire(user, 1));
+        long wait = limiter.tryAcquire(user, 1);
+        assertTrue(wait > 900_000_000L && wait <= 1_000_000_000L, "wait=" + wait);
+    }
+
+    @Test
+    void refillsAtTheConfiguredRate() throws InterruptedException {
+        RateLimiter limiter = new RateLimiter(true, 100, 1, 2, "", 1000);
+        assertEquals(0, limiter.tryAcquire("10.0.0.1", 1));
+        assertTrue(limiter.tryAcquire("10.0.0.1", 1) > 0);
+        Thread.sleep(30);
+        assertEquals(0, limiter.tryAcquire("10.0.0.1", 1));
+    }
+
+    @Test
+    void costsComeFromRouteClassesThenMethod() {
+        RateLimiter limiter = new RateLimiter(true, 1, 10, 3, "GET /api/v1/incidents/export=20,/api/v1/ai/**=5", 1000);
+        assertEquals(20, limiter.cost("GET", "/api/v1/incidents/export"));
+        assertEquals(3, limiter.cost("POST", "/api/v1/incidents/export"));
+        assertEquals(5, limiter.cost("POST", "/api/v1/ai/predict/flood"));
+        assertEquals(1, limiter.cost("GET", "/api/v1/alerts"));
+        assertEquals(3, limiter.cost("DELETE", "/api/v1/alerts/1"));
+    }
+
+    @Test
+    void expensiveRequestDrainsTheBucket() {
+        RateLimiter limiter = new RateLimiter(true, 1, 10, 2, "", 1000);
+        assertEquals(0, limiter.tryAcquire("10.0.0.2", 10));
+        assertTrue(limiter.tryAcquire("10.0.0.2", 1) > 0);
+    }
+
+    @Test
+    void fullStripeKeepsLimitedClientsLimited() {
+        // 64 stripes x 2 clients; these strings share a hash code, so they land in one stripe
+        RateLimiter limiter = new RateLimiter(true, 0.01, 2, 2, "", 128);
+        assertEquals(0, limiter.tryAcquire("AaAa", 2));
+        assertTrue(limiter.tryAcquire("AaAa", 1) > 0);
+        assertEquals(0, limiter.tryAcquire("BBBB", 1));
+        assertEquals(0, limiter.tryAcquire("AaBB", 1));
+        assertTrue(limiter.tryAcquire("AaAa", 1) > 0);
+    }
+
+    @Test
+    void userAndAddressKeysAreSeparate() {
+        RateLimiter limiter = new RateLimiter(true, 0.01, 1, 2, "", 1000);
+        UUID user = UUID.fromString("00000000-0000-0000-0000-000000000001");
+        assertEquals(0, limiter.tryAcquire(user, 1));
+        assertEquals(0, limiter.tryAcquire(user.toString(), 1));
+    }
+}
@@ -0,0 +1,31 @@
+package com.cityasist.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.ResourceAccessException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class AiGatewayServiceTest {
+    // one failure opens the breaker and it turns half-open right away
+    private final AiGatewayService gateway = new AiGatewayService("http://127.0.0.1:9", 100, 100, 1, 0, 10,
+            false, 0, 1, new SimpleMeterRegistry(), null, null, null);
+
+    @AfterEach
+    void shutdown() {
+        gateway.shutdown();
+    }
+
+    @Test
+    void unexpectedErrorInHalfOpenTrialReleasesTheBreaker() {
+        assertNull(gateway.remote("test", () -> { throw new ResourceAccessException("down"); }));
+        assertEquals(CircuitBreaker.State.HALF_OPEN, gateway.breakerState());
+
+        // a response that can't be mapped is not a RestClientException, but still ends the trial
+        assertNull(gateway.remote("test", () -> { throw new ClassCastException("bad body"); }));
+        assertEquals("ok", gateway.remote("test", () -> "ok"));
+        assertEquals(CircuitBreaker.State.CLOSED, gateway.breakerState());
+    }
+}
@@ -0,0 +1,246 @@
+package com.cityasist.service;
+
+import com.cityasist.domain.Alert;
+import com.cityasist.repo.AlertReadStateRepository;
+import com.cityasist.repo.AlertRepository;
+import com.cityasist.repo.ZoneSubscriptionRepository;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AlertReadStatesTest {
+    private final AlertReadStateRepository stateRepository = mock(AlertReadStateRepository.class);
+    private final AlertRepository alertRepository = mock(AlertRepository.class);
+    private final ZoneSubscriptionRepository subscriptionRepository = mock(ZoneSubscriptionRepository.class);
+    private final ZoneSubscriptions subscriptions = new ZoneSubscriptions(subscriptionRepository);
+
+    @Test
+    void contiguousReadsFoldIntoWatermark() {
+        AlertReadStates.ReadState state = AlertReadStates.ReadState.of(0, null);
+        assertTrue(state.add(3));
+        assertEquals(0, state.watermark());
+        assertEquals(List.of(3L), state.readAbove());
+        assertTrue(state.add(1));
+        assertEquals(1, state.watermark());
+        assertTrue(state.add(2));
+        assertEquals(3, state.watermark());
+        assertTrue(state.readAbove().isEmpty());
+        assertFalse(state.add(2));
+        assertTrue(state.isRead(3));
+        assertFalse(state.isRead(4));
+    }
+
+    @Test
+    void advanceToFoldsReadsJustAboveTheNewWatermark() {
+        AlertReadStates.ReadState state = AlertReadStates.ReadState.of(0, null);
+        state.add(5);
+        state.add(7);
+        assertTrue(state.advanceTo(4));
+        assertEquals(5, state.watermark());
+        assertEquals(List.of(7L), state.readAbove());
+        assertTrue(state.advanceTo(6));
+        assertEquals(7, state.watermark());
+        assertTrue(state.readAbove().isEmpty());
+        assertFalse(state.advanceTo(7));
+        assertFalse(state.advanceTo(2));
+    }
+
+    @Test
+    void serializeRoundTrips() {
+        AlertReadStates.ReadState state = AlertReadStates.ReadState.of(100, null);
+        LongStream.of(102, 103, 150, 70_000, 1_000_000).forEach(state::add);
+        byte[] bits = state.serialize();
+        AlertReadStates.ReadState copy = AlertReadStates.ReadState.of(state.watermark(), bits);
+        assertEquals(state.watermark(), copy.watermark());
+        assertEquals(state.readAbove(), copy.readAbove());
+        assertArrayEquals(bits, copy.serialize());
+        assertEquals(100, AlertReadStates.ReadState.of(100, new byte[0]).watermark());
+    }
+
+    @Test
+    void foldsPastSeqsMissingFromTheFeed() {
+        // seq 3 and 5 were never used (rolled back inserts)
+        AlertFeed feed = loadedFeed(1, 2, 4, 6, 7);
+        AlertReadStates states = new AlertReadStates(stateRepository, alertRepository, feed, subscriptions, 10, 120);
+        UUID user = UUID.randomUUID();
+        when(stateRepository.find(user)).thenReturn(Optional.empty());
+        when(stateRepository.findLegacyReadSeqs(user)).thenReturn(List.of());
+
+        states.markRead(user, List.of(alert(1), alert(2), alert(4)));
+        AlertReadStates.ReadState state = states.get(user);
+        assertEquals(4, state.watermark());
+        assertTrue(state.readAbove().isEmpty());
+
+        // 5 is folded too: 6 is the first alert that exists and is unread
+        states.markRead(user, List.of(alert(7)));
+        assertEquals(5, state.watermark());
+        assertEquals(List.of(7L), state.readAbove());
+
+        states.markRead(user, List.of(alert(6)));
+        assertEquals(7, state.watermark());
+        assertTrue(state.readAbove().isEmpty());
+        verify(stateRepository).save(eq(user), eq(7L), any());
+    }
+
+    @Test
+    void asksTheDatabaseWhenTheFeedDoesNotReachBack() {
+        AlertFeed feed = new AlertFeed(alertRepository, 10); // never loaded: covers nothing
+        AlertReadStates states = new AlertReadStates(stateRepository, alertRepository, feed, subscriptions, 10, 120);
+        UUID user = UUID.randomUUID();
+        when(stateRepository.find(user)).thenReturn(Optional.empty());
+        when(stateRepository.findLegacyReadSeqs(user)).thenReturn(List.of());
+        when(alertRepository.findFirstUnreadAfter(anyLong(), anyCollection(), anyBoolean(), anyCollection())).thenReturn(null);
+        when(alertRepository.findFirstUnreadAfter(eq(0L), anyCollection(), eq(false), anyCollection())).thenReturn(12L);
+        when(alertRepository.findSettledSeq(eq(0L), eq(12L), any())).thenReturn(12L);
+
+        states.markRead(user, List.of(alert(10), alert(20)));
+        AlertReadStates.ReadState state = states.get(user);
+        // 1..9 and 11 are gaps, 12 is the first real unread alert
+        assertEquals(11, state.watermark());
+        assertEquals(List.of(20L), state.readAbove());
+    }
+
+    @Test
+    void foldsAlertsOutsideTheUsersZones() {
+        UUID user = UUID.randomUUID();
+        when(subscriptionRepository.findAll()).thenReturn(List.of(new ZoneSubscriptionRepository.Subscription(user, "north")));
+        subscriptions.load();
+        AlertFeed feed = loadedFeed(alert(1, "north"), alert(2, "south"), alert(3, null), alert(4, "north"), alert(5, "south"));
+        AlertReadStates states = new AlertReadStates(stateRepository, alertRepository, feed, subscriptions, 10, 120);
+        when(stateRepository.find(user)).thenReturn(Optional.empty());
+        when(stateRepository.findLegacyReadSeqs(user)).thenReturn(List.of());
+
+        // the user never sees 2 and 5, they must not hold the watermark back
+        states.markRead(user, List.of(alert(1, "north"), alert(3, null), alert(4, "north")));
+        AlertReadStates.ReadState state = states.get(user);
+        assertEquals(4, state.watermark());
+        assertTrue(state.readAbove().isEmpty());
+    }
+
+    @Test
+    void databaseLookupOnlyConsidersTheUsersZones() {
+        UUID user = UUID.randomUUID();
+        when(subscriptionRepository.findAll()).thenReturn(List.of(new ZoneSubscriptionRepository.Subscription(user, "north")));
+        subscriptions.load();
+        AlertFeed feed = new AlertFeed(alertRepository, 10);
+        AlertReadStates states = new AlertReadStates(stateRepository, alertRepository, feed, subscriptions, 10, 120);
+        when(stateRepository.find(user)).thenReturn(Optional.empty());
+        when(stateRepository.findLegacyReadSeqs(user)).thenReturn(List.of());
+        when(alertRepository.findFirstUnreadAfter(eq(0L), anyCollection(), eq(true), eq(List.of("north", ""))))
+                .thenReturn(null);
+        when(alertRepository.findSettledSeq(eq(0L), eq(Long.MAX_VALUE), any())).thenReturn(30L);
+
+        states.markRead(user, List.of(alert(10, "north"), alert(20, "north")));
+        assertEquals(20, states.get(user).watermark());
+    }
+
+    @Test
+    void neverFoldsARecentGapThatCommitsLater() {
+        // seq 3 is handed out before 4 but its insert commits after 4's
+        AlertFeed feed = loadedFeed(alert(1), alert(2), recentAlert(4));
+        AlertReadStates states = new AlertReadStates(stateRepository, alertRepository, feed, subscriptions, 10, 120);
+        UUID user = UUID.randomUUID();
+        when(stateRepository.find(user)).thenReturn(Optional.empty());
+        when(stateRepository.findLegacyReadSeqs(user)).thenReturn(List.of());
+
+        states.markRead(user, List.of(alert(1), alert(2), recentAlert(4)));
+        AlertReadStates.ReadState state = states.get(user);
+        assertEquals(2, state.watermark());
+        assertEquals(List.of(4L), state.readAbove());
+
+        feed.add(recentAlert(3));
+        assertFalse(state.isRead(3));
+        states.markRead(user, List.of(recentAlert(3)));
+        assertEquals(4, state.watermark());
+    }
+
+    @Test
+    void markAllReadLeavesAnInFlightSeqUnread() {
+        AlertFeed feed = loadedFeed(alert(1), alert(2), recentAlert(4));
+        AlertReadStates states = new AlertReadStates(stateRepository, alertRepository, feed, subscriptions, 10, 120);
+        UUID user = UUID.randomUUID();
+        when(stateRepository.find(user)).thenReturn(Optional.empty());
+        when(stateRepository.findLegacyReadSeqs(user)).thenReturn(List.of());
+        when(alertRepository.findSettledSeq(eq(0L), eq(Long.MAX_VALUE), any())).thenReturn(2L);
+
+        assertTrue(states.markAllRead(user));
+        AlertReadStates.ReadState state = states.get(user);
+        assertEquals(2, state.watermark());
+        assertTrue(state.isRead(4));
+
+        feed.add(recentAlert(3));
+        assertFalse(state.isRead(3));
+        // once committed, the next mark-all covers it
+        assertTrue(states.markAllRead(user));
+        assertEquals(4, state.watermark());
+    }
+
+    @Test
+    void foldsAGapOnceTheAlertAboveItSettles() {
+        AlertFeed feed = loadedFeed(alert(1), alert(4));
+        AlertReadStates states = new AlertReadStates(stateRepository, alertRepository, feed, subscriptions, 10, 120);
+        UUID user = UUID.randomUUID();
+        when(stateRepository.find(user)).thenReturn(Optional.empty());
+        when(stateRepository.findLegacyReadSeqs(user)).thenReturn(List.of());
+
+        states.markRead(user, List.of(alert(1), alert(4)));
+        assertEquals(4, states.get(user).watermark());
+    }
+
+    private AlertFeed loadedFeed(long... seqs) {
+        List<Alert> alerts = new ArrayList<>();
+        for (long seq : seqs) alerts.add(alert(seq));
+        return loadedFeed(alerts.toArray(Alert[]::new));
+    }
+
+    private AlertFeed loadedFeed(Alert... loaded) {
+        List<Alert> alerts = new ArrayList<>(List.of(loaded));
+        alerts.sort(Comparator.comparing(Alert::getSeq).reversed());
+        when(alertRepository.findAllByOrderBySeqDesc(any())).thenReturn(alerts);
+        AlertFeed feed = new AlertFeed(alertRepository, 100);
+        feed.load();
+        return feed;
+    }
+
+    // Created well before the gap grace period, so every seq below it has settled
+    private static Alert alert(long seq) {
+        Alert a = recentAlert(seq);
+        a.setCreatedAt(Instant.now().minus(1, ChronoUnit.HOURS));
+        return a;
+    }
+
+    private static Alert alert(long seq, String zone) {
+        Alert a = alert(seq);
+        a.setZone(zone);
+        return a;
+    }
+
+    private static Alert recentAlert(long seq) {
+        Alert a = new Alert();
+        a.setId(new UUID(0, seq));
+        a.setSeq(seq);
+        a.setType("flood");
+        a.setSeverity("info");
+        return a;
+    }
+}
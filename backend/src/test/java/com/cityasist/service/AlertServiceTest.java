@@ -0,0 +1,60 @@
+package com.cityasist.service;
+
+import com.cityasist.domain.Alert;
+import com.cityasist.repo.AlertRepository;
+import com.cityasist.repo.ZoneSubscriptionRepository;
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AlertServiceTest {
+    private final AlertRepository alertRepository = mock(AlertRepository.class);
+    private final AlertService service = new AlertService(alertRepository, new AlertFeed(alertRepository, 100),
+            mock(AlertReadStates.class), new ZoneSubscriptions(mock(ZoneSubscriptionRepository.class)),
+            mock(AlertPushHub.class), mock(AlertUnreadCounters.class), new AlertStormGuard(true, 300, 3, 12, 100));
+    private final AtomicLong seqs = new AtomicLong();
+
+    AlertServiceTest() {
+        when(alertRepository.saveAndFlush(any())).thenAnswer(inv -> {
+            Alert a = inv.getArgument(0);
+            a.setId(UUID.randomUUID());
+            a.setSeq(seqs.incrementAndGet());
+            return a;
+        });
+    }
+
+    @Test
+    void apiRepeatsAreMergedWhateverTheirPadding() {
+        Alert first = service.create(" flood ", "Flood", "Water rising", "Warning ", "north");
+        assertEquals("flood", first.getType());
+        assertEquals("Warning", first.getSeverity());
+        when(alertRepository.findFirstByTypeIgnoreCaseAndZoneAndSeverityIgnoreCaseOrderBySeqDesc("FLOOD", "north", "warning"))
+                .thenReturn(Optional.of(first));
+
+        Alert repeat = service.create("FLOOD", "Flood", "Water rising", " warning", " north ");
+        assertSame(first, repeat);
+        assertEquals(2, repeat.getOccurrences());
+        verify(alertRepository, times(1)).saveAndFlush(any());
+    }
+
+    @Test
+    void systemAlertsSkipTheStormGuard() {
+        Alert first = service.create("flood", "Flood", "Risk high", "warning", "north", AlertService.Origin.SYSTEM);
+        Alert second = service.create("flood", "Flood", "Risk high", "warning", "north", AlertService.Origin.SYSTEM);
+        assertNotSame(first, second);
+        verify(alertRepository, times(2)).saveAndFlush(any());
+        verify(alertRepository, never()).findFirstByTypeIgnoreCaseAndZoneAndSeverityIgnoreCaseOrderBySeqDesc(any(), any(), any());
+    }
+}
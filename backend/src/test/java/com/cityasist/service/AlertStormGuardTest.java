@@ -0,0 +1,37 @@
+package com.cityasist.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class AlertStormGuardTest {
+    private final AlertStormGuard guard = new AlertStormGuard(true, 300, 3, 12, 100);
+
+    @Test
+    void repeatsInWindowMergeRegardlessOfCase() {
+        assertEquals(AlertStormGuard.Decision.EMIT, guard.admit("aqi", "north", "warning"));
+        assertEquals(AlertStormGuard.Decision.MERGE, guard.admit("AQI", "north", "Warning"));
+        assertEquals(AlertStormGuard.Decision.MERGE, guard.admit(" aqi ", "north", "WARNING"));
+    }
+
+    @Test
+    void otherZoneOrSeverityIsAnotherKey() {
+        assertEquals(AlertStormGuard.Decision.EMIT, guard.admit("aqi", "north", "warning"));
+        assertEquals(AlertStormGuard.Decision.EMIT, guard.admit("aqi", "south", "warning"));
+        assertEquals(AlertStormGuard.Decision.EMIT, guard.admit("aqi", "north", "critical"));
+        assertEquals(AlertStormGuard.Decision.EMIT, guard.admit("aqi", null, "warning"));
+    }
+
+    @Test
+    void everyTypeIsGuarded() {
+        assertEquals(AlertStormGuard.Decision.EMIT, guard.admit("flood", "north", "warning"));
+        assertEquals(AlertStormGuard.Decision.MERGE, guard.admit("Flood", "north", "warning"));
+    }
+
+    @Test
+    void disabledGuardAlwaysEmits() {
+        AlertStormGuard off = new AlertStormGuard(false, 300, 3, 12, 100);
+        assertEquals(AlertStormGuard.Decision.EMIT, off.admit("aqi", "north", "warning"));
+        assertEquals(AlertStormGuard.Decision.EMIT, off.admit("aqi", "north", "warning"));
+    }
+}
@@ -0,0 +1,92 @@
+package com.cityasist.service;
+
+import com.cityasist.domain.Alert;
+import com.cityasist.repo.ZoneSubscriptionRepository;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class AlertUnreadCountersTest {
+    private final UUID north = UUID.randomUUID();
+    private final UUID south = UUID.randomUUID();
+    private final UUID everywhere = UUID.randomUUID();
+    private final ZoneSubscriptions subscriptions = loadedSubscriptions();
+
+    @Test
+    void zonedAlertOnlyCountsForItsSubscribersAndUnscopedUsers() {
+        AlertUnreadCounters counters = new AlertUnreadCounters(subscriptions, 100);
+        counters.get(north, () -> 0);
+        counters.get(south, () -> 0);
+        counters.get(everywhere, () -> 0);
+
+        counters.onCreated(alert("North"));
+        counters.onCreated(alert(null));
+
+        assertEquals(2, counters.get(north));
+        assertEquals(1, counters.get(south));
+        assertEquals(2, counters.get(everywhere));
+    }
+
+    @Test
+    void invalidatedUserIsNotCounted() {
+        AlertUnreadCounters counters = new AlertUnreadCounters(subscriptions, 100);
+        counters.get(everywhere, () -> 3);
+        counters.invalidate(everywhere);
+        counters.onCreated(alert("north"));
+        assertNull(counters.get(everywhere));
+    }
+
+    @Test
+    void changeWhileBuildingTriggersRecount() {
+        AlertUnreadCounters counters = new AlertUnreadCounters(subscriptions, 100);
+        AtomicInteger builds = new AtomicInteger();
+        long count = counters.get(north, () -> {
+            // the alert commits while the first count runs; it may or may not be in that count
+            if (builds.incrementAndGet() == 1) counters.onCreated(alert("north"));
+            return 5;
+        });
+        assertEquals(2, builds.get());
+        assertEquals(5, count);
+        counters.onCreated(alert("north"));
+        assertEquals(6, counters.get(north));
+    }
+
+    @Test
+    void fullMapEvictsSingleEntries() {
+        AlertUnreadCounters counters = new AlertUnreadCounters(subscriptions, 2);
+        counters.get(north, () -> 1);
+        counters.get(south, () -> 2);
+        counters.get(everywhere, () -> 3);
+        long kept = Stream.of(north, south).filter(u -> counters.get(u) != null).count();
+        assertEquals(1, kept);
+        assertEquals(3, counters.get(everywhere));
+    }
+
+    private ZoneSubscriptions loadedSubscriptions() {
+        ZoneSubscriptionRepository repository = mock(ZoneSubscriptionRepository.class);
+        when(repository.findAll()).thenReturn(List.of(
+                new ZoneSubscriptionRepository.Subscription(north, "north"),
+                new ZoneSubscriptionRepository.Subscription(south, "south")));
+        ZoneSubscriptions s = new ZoneSubscriptions(repository);
+        s.load();
+        return s;
+    }
+
+    private static Alert alert(String zone) {
+        Alert a = new Alert();
+        a.setId(UUID.randomUUID());
+        a.setSeq(1L);
+        a.setType("flood");
+        a.setSeverity("warning");
+        a.setZone(zone);
+        return a;
+    }
+}
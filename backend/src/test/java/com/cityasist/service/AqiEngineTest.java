@@ -0,0 +1,110 @@
+package com.cityasist.service;
+
+import com.cityasist.repo.AqiReadingsRepository;
+import com.cityasist.repo.AqiReadingsRepository.AqiReading;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AqiEngineTest {
+    private final AqiReadingsRepository repository = mock(AqiReadingsRepository.class);
+    private final AqiEngine engine = new AqiEngine(repository, true, 2, 24, 120);
+    private final UUID sensor = UUID.randomUUID();
+    private final Instant hour = Instant.now().truncatedTo(ChronoUnit.HOURS);
+
+    @Test
+    void nowCastWeighsRecentHoursWithFlooredFactor() {
+        // most recent first: 20, 10, 10 -> factor 10/20 = 0.5
+        reading(0, 20.0);
+        reading(1, 10.0);
+        reading(2, 10.0);
+        var aqi = engine.sensor(sensor).orElseThrow();
+        assertEquals((20 + 0.5 * 10 + 0.25 * 10) / 1.75, aqi.pm25NowCast(), 1e-9);
+        assertEquals(AqiScale.pm25(aqi.pm25NowCast()), aqi.aqi());
+        assertEquals("pm25", aqi.dominant());
+    }
+
+    @Test
+    void nowCastUsesTheMinOverMaxFactorAboveTheFloor() {
+        reading(0, 10.0);
+        reading(1, 8.0);
+        reading(2, 9.0);
+        assertEquals((10 + 0.8 * 8 + 0.64 * 9) / 2.44, engine.sensor(sensor).orElseThrow().pm25NowCast(), 1e-9);
+    }
+
+    @Test
+    void readingsInOneHourAreAveragedAndGapsSkipped() {
+        reading(0, 10.0);
+        reading(0, 30.0);
+        reading(2, 10.0);
+        // hours 0 and 2 have data: weights 1 and 0.5^2
+        assertEquals((20 + 0.25 * 10) / 1.25, engine.sensor(sensor).orElseThrow().pm25NowCast(), 1e-9);
+    }
+
+    @Test
+    void needsTwoOfTheLastThreeHours() {
+        reading(0, 40.0);
+        reading(5, 40.0);
+        var aqi = engine.sensor(sensor).orElseThrow();
+        assertNull(aqi.pm25NowCast());
+        assertNull(aqi.aqi());
+    }
+
+    @Test
+    void pollWalksTheKeysetThroughRowsSharingAnIngestTime() {
+        Instant t = Instant.now();
+        AqiReading a = row(t, 1, 12.0), b = row(t, 2, 12.0), c = row(t, 3, 12.0);
+        when(repository.findIngestedAfter(any(), any(), any(), anyInt())).thenReturn(List.of());
+        when(repository.findIngestedAfter(any(), eq(new UUID(0, 0)), any(), eq(2))).thenReturn(List.of(a, b));
+        when(repository.findIngestedAfter(eq(t), eq(b.id()), any(), eq(2))).thenReturn(List.of(c));
+
+        engine.poll();
+        // the overlap window starts before t, so the same rows come back and are skipped
+        engine.poll();
+
+        verify(repository, times(2)).findIngestedAfter(eq(t), eq(b.id()), any(), eq(2));
+        verify(repository, times(2)).findIngestedAfter(any(), eq(new UUID(0, 0)), any(), eq(2));
+    }
+
+    @Test
+    void rowCommittedLateWithinTheOverlapIsAppliedOnce() {
+        AqiEngine engine = new AqiEngine(repository, true, 10, 24, 120);
+        engine.accept(new AqiReading(UUID.randomUUID(), sensor, "north", hour.minus(1, ChronoUnit.HOURS).plusSeconds(1),
+                Instant.now(), 30.0, null));
+        Instant t1 = Instant.now().minusSeconds(30);
+        AqiReading a = row(t1, 1, 10.0);
+        AqiReading b = row(t1.plusSeconds(10), 2, 60.0);
+        AqiReading c = row(t1.plusSeconds(20), 3, 20.0);
+        // b was inserted before c but committed after the first poll had already seen c
+        when(repository.findIngestedAfter(any(), eq(new UUID(0, 0)), any(), eq(10)))
+                .thenReturn(List.of(a, c), List.of(a, b, c));
+
+        engine.poll();
+        engine.poll();
+
+        // this hour averages 10, 60 and 20 once each, the last hour is 30: NowCast 30
+        assertEquals(30.0, engine.sensor(sensor).orElseThrow().pm25NowCast(), 1e-9);
+    }
+
+    private void reading(int hoursAgo, double pm25) {
+        engine.accept(new AqiReading(UUID.randomUUID(), sensor, "north",
+                hour.minus(hoursAgo, ChronoUnit.HOURS).plusSeconds(1), Instant.now(), pm25, null));
+    }
+
+    private AqiReading row(Instant ingestedAt, long n, double pm25) {
+        return new AqiReading(new UUID(1, n), sensor, "north", hour.plusSeconds(n), ingestedAt, pm25, 30.0);
+    }
+}
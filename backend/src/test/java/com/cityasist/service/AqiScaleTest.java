@@ -0,0 +1,54 @@
+package com.cityasist.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class AqiScaleTest {
+    @Test
+    void pm25BandEdges() {
+        assertEquals(0, AqiScale.pm25(0.0));
+        assertEquals(50, AqiScale.pm25(9.0));
+        assertEquals(51, AqiScale.pm25(9.1));
+        assertEquals(100, AqiScale.pm25(35.4));
+        assertEquals(101, AqiScale.pm25(35.5));
+        assertEquals(150, AqiScale.pm25(55.4));
+        assertEquals(151, AqiScale.pm25(55.5));
+        assertEquals(200, AqiScale.pm25(125.4));
+        assertEquals(201, AqiScale.pm25(125.5));
+        assertEquals(300, AqiScale.pm25(225.4));
+        assertEquals(301, AqiScale.pm25(225.5));
+        assertEquals(500, AqiScale.pm25(325.4));
+        assertEquals(500, AqiScale.pm25(900));
+    }
+
+    @Test
+    void pm25TruncatesToOneDecimalBeforeIndexing() {
+        assertEquals(50, AqiScale.pm25(9.09));
+        assertEquals(AqiScale.pm25(35.4), AqiScale.pm25(35.49));
+        assertEquals(-1, AqiScale.pm25(Double.NaN));
+    }
+
+    @Test
+    void pm10BandEdges() {
+        assertEquals(0, AqiScale.pm10(0));
+        assertEquals(50, AqiScale.pm10(54));
+        assertEquals(51, AqiScale.pm10(55));
+        assertEquals(100, AqiScale.pm10(154.9));
+        assertEquals(101, AqiScale.pm10(155));
+        assertEquals(200, AqiScale.pm10(354));
+        assertEquals(201, AqiScale.pm10(355));
+        assertEquals(500, AqiScale.pm10(604));
+        assertEquals(-1, AqiScale.pm10(Double.NaN));
+    }
+
+    @Test
+    void categories() {
+        assertEquals("GOOD", AqiScale.category(50));
+        assertEquals("MODERATE", AqiScale.category(51));
+        assertEquals("UNHEALTHY_SENSITIVE", AqiScale.category(150));
+        assertEquals("UNHEALTHY", AqiScale.category(151));
+        assertEquals("VERY_UNHEALTHY", AqiScale.category(300));
+        assertEquals("HAZARDOUS", AqiScale.category(301));
+    }
+}
@@ -0,0 +1,161 @@
+package com.cityasist.service;
+
+import com.cityasist.domain.Incident;
+import com.cityasist.domain.Role;
+import com.cityasist.domain.User;
+import com.cityasist.repo.IncidentRepository;
+import com.cityasist.repo.IncidentTimelineRepository;
+import com.cityasist.repo.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class DispatchEngineTest {
+    private final IncidentRepository incidents = mock(IncidentRepository.class);
+    private final IncidentTimelineRepository timeline = mock(IncidentTimelineRepository.class);
+    private final UserRepository users = mock(UserRepository.class);
+    private final Map<UUID, UUID> assignments = new ConcurrentHashMap<>();
+    private final List<UUID> assignmentOrder = new CopyOnWriteArrayList<>();
+    private DispatchEngine engine;
+
+    private DispatchEngine engine(int operators, int maxOpen) {
+        List<User> ops = new ArrayList<>();
+        for (int i = 0; i < operators; i++) {
+            User u = new User();
+            u.setId(UUID.randomUUID());
+            u.setRole(Role.OPERATOR);
+            u.setZone("zone " + (char) ('a' + i % 4));
+            ops.add(u);
+        }
+        when(users.findByRole(Role.OPERATOR)).thenReturn(ops);
+        when(incidents.countOpenByAssignee(anyCollection())).thenReturn(List.of());
+        when(incidents.findUnassignedOpen(anyCollection())).thenReturn(List.of());
+        when(incidents.assignIfUnassigned(any(), any(), anyCollection())).thenAnswer(inv -> {
+            UUID id = inv.getArgument(0);
+            if (assignments.putIfAbsent(id, inv.getArgument(1)) != null) return 0;
+            assignmentOrder.add(id);
+            return 1;
+        });
+        when(incidents.getReferenceById(any())).thenAnswer(inv -> new Incident());
+        engine = new DispatchEngine(incidents, timeline, users, mock(OperatorDirectory.class),
+                mock(PlatformTransactionManager.class), true, maxOpen, 15);
+        engine.rebuild();
+        return engine;
+    }
+
+    @AfterEach
+    void stop() {
+        if (engine != null) engine.shutdown();
+    }
+
+    @Test
+    void simulatedPeakAssignsEveryIncidentWithinCapacity() throws Exception {
+        int operators = 50, perProducer = 1250, producers = 4;
+        engine(operators, 1000);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            Thread t = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < perProducer; i++) engine.submit(incident(i % 4 == 0 ? "CRITICAL" : "LOW", "Zone " + (char) ('a' + i % 5)));
+            });
+            t.start();
+            threads.add(t);
+        }
+        long began = System.nanoTime();
+        start.countDown();
+        for (Thread t : threads) t.join();
+        int total = producers * perProducer;
+        awaitTrue(() -> assignments.size() == total, 10_000);
+        long tookMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - began);
+
+        Map<String, Object> snapshot = engine.snapshot();
+        assertEquals((long) total, snapshot.get("assigned"));
+        assertEquals(0, snapshot.get("pending"));
+        @SuppressWarnings("unchecked")
+        List<Map<String, Object>> ops = (List<Map<String, Object>>) snapshot.get("operators");
+        assertEquals(total, ops.stream().mapToInt(o -> (Integer) o.get("open")).sum());
+        // every incident was submitted after began, so no assignment can have waited longer than the run
+        double avg = (Double) snapshot.get("avgAssignLatencyMs");
+        long max = ((Number) snapshot.get("maxAssignLatencyMs")).longValue();
+        assertTrue(avg >= 0 && avg <= max, "avg " + avg + " max " + max);
+        assertTrue(max <= tookMs + 1, "max " + max + " run " + tookMs);
+    }
+
+    @Test
+    void severityChangeRekeysPendingIncident() throws Exception {
+        engine(0, 1);
+        Incident older = incident("HIGH", "x");
+        older.setReportedAt(Instant.now().minusSeconds(60));
+        Incident escalated = incident("LOW", "x");
+        engine.submit(older);
+        engine.submit(escalated);
+        escalated.setSeverity("CRITICAL");
+        engine.onSeverityChanged(escalated);
+
+        User op = new User();
+        op.setId(UUID.randomUUID());
+        op.setRole(Role.OPERATOR);
+        engine.onOperatorCreated(op);
+        awaitTrue(() -> assignments.size() == 1, 5_000);
+        assertEquals(escalated.getId(), assignmentOrder.get(0));
+    }
+
+    @Test
+    void failedAssignmentKeepsIncidentAndReleasesCapacity() throws Exception {
+        engine(1, 5);
+        AtomicInteger calls = new AtomicInteger();
+        doAnswer(inv -> {
+            calls.incrementAndGet();
+            throw new IllegalStateException("db down");
+        }).when(incidents).assignIfUnassigned(any(), any(), anyCollection());
+        engine.submit(incident("HIGH", "x"));
+        awaitTrue(() -> calls.get() == 1, 5_000);
+        awaitTrue(() -> Integer.valueOf(1).equals(engine.snapshot().get("pending")), 5_000);
+        @SuppressWarnings("unchecked")
+        List<Map<String, Object>> ops = (List<Map<String, Object>>) engine.snapshot().get("operators");
+        assertEquals(0, ops.get(0).get("open"));
+    }
+
+    private static Incident incident(String severity, String location) {
+        Incident i = new Incident();
+        i.setId(UUID.randomUUID());
+        i.setSeverity(severity);
+        i.setStatus("OPEN");
+        i.setLocation(location);
+        i.setReportedAt(Instant.now());
+        return i;
+    }
+
+    private static void awaitTrue(BooleanSupplier condition, long timeoutMs) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "condition not met within " + timeoutMs + "ms");
+            Thread.sleep(5);
+        }
+    }
+}
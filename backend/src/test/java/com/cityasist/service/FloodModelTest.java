@@ -0,0 +1,114 @@
+package com.cityasist.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/** The bundled model definitions must score exactly like the hard-coded heuristics they replaced. */
+class FloodModelTest {
+    private static final double[] RAIN = {Double.NaN, 0, 35, 120, 199.9, 260};
+    private static final double[] RIVER = {Double.NaN, 0, 1.5, 4, 7.9, 11};
+    private static final double[] SOIL = {Double.NaN, 0, 40, 85, 100, 130};
+    private static final String[] ZONES = {null, "", "Zone A", "zone b", "Riverside", "Central", "Coastal strip", "Hill top"};
+    private static final Pattern LEGACY_PRONE = Pattern.compile("lowland|river|coast|zone\\s*[ab]", Pattern.CASE_INSENSITIVE);
+
+    private final LocalModelRegistry registry = registry();
+
+    @Test
+    void bundledModelsMatchLegacyHeuristics() {
+        FloodModel heuristic = registry.get("flood-heuristic");
+        FloodModel logistic = registry.get("flood-logistic");
+        for (String zone : ZONES) {
+            boolean prone = zone != null && LEGACY_PRONE.matcher(zone).find();
+            assertEquals(prone, heuristic.isProneZone(zone), zone);
+            assertEquals(prone, logistic.isProneZone(zone), zone);
+            for (double rain : RAIN) for (double river : RIVER) for (double soil : SOIL) {
+                String at = "rain=" + rain + " river=" + river + " soil=" + soil + " zone=" + zone;
+                double h = heuristic.score(rain, river, soil, prone);
+                assertEquals(legacyHeuristic(rain, river, soil, prone), h, 1e-12, at);
+                assertEquals(legacyLabel(h), heuristic.label(h), at);
+                assertEquals(legacyConfidence(rain, river, soil), heuristic.confidence(rain, river, soil), 1e-12, at);
+                double l = logistic.score(rain, river, soil, prone);
+                assertEquals(legacyLogistic(rain, river, soil, prone), l, 1e-12, at);
+                assertEquals(legacyLabel(l), logistic.label(l), at);
+                assertEquals(0.7, logistic.confidence(rain, river, soil), at);
+            }
+        }
+    }
+
+    @Test
+    void batchScoringMatchesSingleRows() {
+        FloodModel heuristic = registry.get("flood-heuristic");
+        int n = RAIN.length;
+        String[] zones = {"Riverside", null, "Central", "zone a", "", "Lowland"};
+        double[] p = new double[n], c = new double[n];
+        String[] labels = new String[n];
+        heuristic.score(RAIN, RIVER, SOIL, zones, p, c, labels);
+        for (int i = 0; i < n; i++) {
+            double expected = heuristic.score(RAIN[i], RIVER[i], SOIL[i], heuristic.isProneZone(zones[i]));
+            assertEquals(expected, p[i], 0.0);
+            assertEquals(heuristic.label(expected), labels[i]);
+        }
+    }
+
+    @Test
+    void fallbackIsTheHeuristic() {
+        assertEquals("flood-heuristic", registry.fallback().name());
+        assertTrue(registry.all().size() >= 2);
+        assertFalse(Double.isNaN(registry.fallback().score(10, Double.NaN, Double.NaN, false)));
+        assertTrue(Double.isNaN(registry.fallback().score(Double.NaN, Double.NaN, Double.NaN, true)));
+    }
+
+    private static LocalModelRegistry registry() {
+        try {
+            return new LocalModelRegistry(new ObjectMapper(), "", "flood-heuristic");
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // The kernels FloodModel replaced, verbatim
+
+    private static double legacyHeuristic(double rainfall, double riverLevel, double soil, boolean prone) {
+        if (Double.isNaN(rainfall) && Double.isNaN(riverLevel) && Double.isNaN(soil)) return Double.NaN;
+        double prob = 0.4 * component(rainfall, 200.0) + 0.45 * component(riverLevel, 8.0) + 0.15 * component(soil, 100.0);
+        return prone ? clamp01(prob + 0.1) : prob;
+    }
+
+    private static double legacyConfidence(double rainfall, double riverLevel, double soil) {
+        int provided = 0;
+        if (!Double.isNaN(rainfall)) provided++;
+        if (!Double.isNaN(riverLevel)) provided++;
+        if (!Double.isNaN(soil)) provided++;
+        return provided / 3.0;
+    }
+
+    private static double legacyLogistic(double rainfall, double riverLevel, double soil, boolean prone) {
+        double z = 1.2 * component(rainfall, 150.0) + 1.6 * component(riverLevel, 6.0) + 0.6 * component(soil, 100.0)
+                + (prone ? 0.5 : 0.0) - 1.5;
+        return clamp01(1.0 / (1.0 + Math.exp(-z)));
+    }
+
+    private static String legacyLabel(double prob) {
+        if (Double.isNaN(prob)) return "UNKNOWN";
+        if (prob >= 0.8) return "CRITICAL";
+        if (prob >= 0.6) return "HIGH";
+        if (prob >= 0.4) return "MEDIUM";
+        if (prob >= 0.2) return "LOW";
+        return "VERY_LOW";
+    }
+
+    private static double component(double value, double scale) {
+        return Double.isNaN(value) ? 0.0 : clamp01(value / scale);
+    }
+
+    private static double clamp01(double x) {
+        return Math.max(0.0, Math.min(1.0, x));
+    }
+}
@@ -0,0 +1,71 @@
+package com.cityasist.service;
+
+import com.cityasist.repo.FloodRiskStateRepository;
+import com.cityasist.repo.ZoneReadingsRepository;
+import com.cityasist.repo.ZoneReadingsRepository.ZoneReadings;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class FloodRiskPipelineTest {
+    private final ZoneReadingsRepository readings = mock(ZoneReadingsRepository.class);
+    private final FloodRiskStateRepository states = mock(FloodRiskStateRepository.class);
+    private final AiGatewayService gateway = mock(AiGatewayService.class);
+    private final AlertService alerts = mock(AlertService.class);
+    private final FloodRiskPipeline pipeline = new FloodRiskPipeline(readings, states, gateway, alerts, true, 180, 0.6, 2);
+
+    FloodRiskPipelineTest() {
+        when(readings.latestByZone(any())).thenReturn(List.of(new ZoneReadings("north", 40.0, 3.0, 70.0, Instant.now())));
+    }
+
+    @AfterEach
+    void shutdown() {
+        pipeline.shutdown();
+    }
+
+    @Test
+    void alertsOncePerCrossingAndReArmsBelowTheThreshold() {
+        when(states.findZonesAbove()).thenReturn(Set.of());
+        pipeline.load();
+        runWith(0.4);
+        runWith(0.7);
+        runWith(0.9);
+        verify(alerts, times(1)).create(eq("flood"), anyString(), anyString(), eq("warning"), eq("north"),
+                eq(AlertService.Origin.SYSTEM));
+        verify(states).save("north", true, 0.7);
+
+        runWith(0.5);
+        verify(states).save("north", false, 0.5);
+        runWith(0.85);
+        verify(alerts, times(1)).create(eq("flood"), anyString(), anyString(), eq("critical"), eq("north"),
+                eq(AlertService.Origin.SYSTEM));
+    }
+
+    @Test
+    void zoneAboveBeforeARestartDoesNotAlertAgain() {
+        when(states.findZonesAbove()).thenReturn(Set.of("north"));
+        pipeline.load();
+        runWith(0.75);
+        verify(alerts, never()).create(any(), any(), any(), any(), any(), any());
+        verify(states, never()).save(any(), eq(true), any());
+    }
+
+    private void runWith(double probability) {
+        when(gateway.predictFlood(anyMap())).thenReturn(Map.of("probability", probability, "label", "HIGH", "source", "local"));
+        pipeline.run();
+    }
+}
@@ -0,0 +1,72 @@
+package com.cityasist.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HashedWheelTimerTest {
+    private final HashedWheelTimer timer = new HashedWheelTimer("test-wheel", 10, TimeUnit.MILLISECONDS, 8);
+
+    @AfterEach
+    void stop() {
+        timer.stop();
+    }
+
+    @Test
+    void firesNoEarlierThanDelayAcrossRounds() throws InterruptedException {
+        // 8 buckets of 10ms: 250ms needs several rounds of the wheel
+        long[] delays = {0, 15, 80, 250};
+        CountDownLatch fired = new CountDownLatch(delays.length);
+        AtomicBoolean early = new AtomicBoolean();
+        for (long delay : delays) {
+            long start = System.nanoTime();
+            timer.schedule(() -> {
+                if (System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(delay)) early.set(true);
+                fired.countDown();
+            }, delay, TimeUnit.MILLISECONDS);
+        }
+        assertTrue(fired.await(5, TimeUnit.SECONDS));
+        assertFalse(early.get());
+    }
+
+    @Test
+    void cancelledTimeoutNeverRuns() throws InterruptedException {
+        AtomicBoolean ran = new AtomicBoolean();
+        HashedWheelTimer.Timeout t = timer.schedule(() -> ran.set(true), 30, TimeUnit.MILLISECONDS);
+        assertTrue(t.cancel());
+        assertFalse(t.cancel());
+        CountDownLatch later = new CountDownLatch(1);
+        timer.schedule(later::countDown, 60, TimeUnit.MILLISECONDS);
+        assertTrue(later.await(5, TimeUnit.SECONDS));
+        assertFalse(ran.get());
+    }
+
+    @Test
+    void cannotCancelAfterExpiry() throws InterruptedException {
+        CountDownLatch fired = new CountDownLatch(1);
+        HashedWheelTimer.Timeout t = timer.schedule(fired::countDown, 0, TimeUnit.MILLISECONDS);
+        assertTrue(fired.await(5, TimeUnit.SECONDS));
+        assertFalse(t.cancel());
+    }
+
+    @Test
+    void failingTaskDoesNotStopTheWheel() throws InterruptedException {
+        AtomicLong runs = new AtomicLong();
+        CountDownLatch after = new CountDownLatch(1);
+        timer.schedule(() -> {
+            runs.incrementAndGet();
+            throw new IllegalStateException("boom");
+        }, 5, TimeUnit.MILLISECONDS);
+        timer.schedule(after::countDown, 40, TimeUnit.MILLISECONDS);
+        assertTrue(after.await(5, TimeUnit.SECONDS));
+        assertEquals(1, runs.get());
+    }
+}
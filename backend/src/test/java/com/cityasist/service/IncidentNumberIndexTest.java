@@ -0,0 +1,35 @@
+package com.cityasist.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class IncidentNumberIndexTest {
+    @Test
+    void evictsLeastRecentlyUsedNumber() {
+        IncidentNumberIndex index = new IncidentNumberIndex(2);
+        UUID a = UUID.randomUUID(), b = UUID.randomUUID(), c = UUID.randomUUID();
+        index.put(1L, a);
+        index.put(2L, b);
+        index.idFor(1L);
+        index.put(3L, c);
+        assertEquals(a, index.idFor(1L));
+        assertNull(index.idFor(2L));
+        assertEquals(c, index.idFor(3L));
+    }
+
+    @Test
+    void remappingAnIdDropsItsOldNumber() {
+        IncidentNumberIndex index = new IncidentNumberIndex(10);
+        UUID a = UUID.randomUUID();
+        index.put(1L, a);
+        index.put(2L, a);
+        assertNull(index.idFor(1L));
+        assertEquals(a, index.idFor(2L));
+        index.remove(a);
+        assertNull(index.idFor(2L));
+    }
+}
@@ -0,0 +1,72 @@
+package com.cityasist.service;
+
+import com.cityasist.repo.IncidentArchiveRepository;
+import com.cityasist.repo.IncidentRepository;
+import com.cityasist.repo.IncidentTimelineRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class IncidentServiceTest {
+    private final IncidentRepository incidentRepository = mock(IncidentRepository.class);
+    private final IncidentArchiveRepository archiveRepository = mock(IncidentArchiveRepository.class);
+    private final IncidentService service = new IncidentService(incidentRepository, mock(IncidentTimelineRepository.class),
+            mock(IncidentNumberIndex.class), mock(DispatchEngine.class), mock(TimelineWriter.class), archiveRepository,
+            mock(EscalationScheduler.class), mock(OperatorDirectory.class));
+
+    @AfterEach
+    void clearAuth() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void archivedListAppliesTheSameFiltersToTheArchive() {
+        UUID citizen = signIn("ROLE_CITIZEN");
+        Instant from = Instant.parse("2026-01-01T00:00:00Z");
+        PageRequest pr = PageRequest.of(1, 20);
+        when(archiveRepository.search(any(), any(), any(), any(), any(), any(), any(), any())).thenReturn(Page.empty(pr));
+
+        service.list(Optional.of("CLOSED"), Optional.of("high"), Optional.of("north"), Optional.of(from),
+                Map.of("kind", "pothole"), true, 1, 20);
+
+        verify(archiveRepository).search(citizen, null, "CLOSED", "high", from, "%north%", "{\"kind\":\"pothole\"}", pr);
+        verifyNoInteractions(incidentRepository);
+    }
+
+    @Test
+    void operatorsOnlySeeTheirOwnArchivedIncidents() {
+        UUID operator = signIn("ROLE_OPERATOR");
+        PageRequest pr = PageRequest.of(0, 20);
+        when(archiveRepository.search(any(), any(), any(), any(), any(), any(), any(), any())).thenReturn(Page.empty(pr));
+
+        Page<?> page = service.list(Optional.empty(), Optional.empty(), Optional.empty(), Optional.empty(), Map.of(), true, 0, 20);
+
+        assertEquals(0, page.getTotalElements());
+        verify(archiveRepository).search(null, operator, null, null, null, "%", null, pr);
+        verifyNoInteractions(incidentRepository);
+    }
+
+    private static UUID signIn(String role) {
+        UUID id = UUID.randomUUID();
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(id, null, List.of(new SimpleGrantedAuthority(role))));
+        return id;
+    }
+}
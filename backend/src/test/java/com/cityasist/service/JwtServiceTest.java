@@ -0,0 +1,72 @@
+package com.cityasist.service;
+
+import com.cityasist.domain.Role;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class JwtServiceTest {
+    private static final String SECRET = "test-secret";
+    private final JwtService jwt = new JwtService(SECRET, 15, 100);
+
+    @Test
+    void cachedTokenKeepsResolvingToTheSamePrincipal() {
+        UUID user = UUID.randomUUID();
+        String token = jwt.generateAccessToken(user, Role.OPERATOR);
+        JwtService.JwtPrincipal first = jwt.parseToken(token);
+        assertEquals(new JwtService.JwtPrincipal(user, Role.OPERATOR), first);
+        assertEquals(first, jwt.parseToken(token));
+    }
+
+    @Test
+    void cachedTokenStopsWorkingAtItsExpiry() throws Exception {
+        String token = Jwts.builder()
+                .setSubject(UUID.randomUUID().toString())
+                .claim("role", Role.CITIZEN.name())
+                .setExpiration(new Date(System.currentTimeMillis() + 1500))
+                .signWith(Keys.hmacShaKeyFor(MessageDigest.getInstance("SHA-256").digest(SECRET.getBytes(StandardCharsets.UTF_8))),
+                        SignatureAlgorithm.HS256)
+                .compact();
+        assertEquals(Role.CITIZEN, jwt.parseToken(token).role());
+        Thread.sleep(1600);
+        assertNull(jwt.parseToken(token));
+    }
+
+    @Test
+    void tamperedTokensAreRejectedEvenAfterTheOriginalIsCached() {
+        String token = jwt.generateAccessToken(UUID.randomUUID(), Role.CITIZEN);
+        jwt.parseToken(token);
+        String[] parts = token.split("\\.");
+        String admin = Jwts.builder().setSubject(UUID.randomUUID().toString()).claim("role", Role.ADMIN.name()).compact();
+        assertNull(jwt.parseToken(parts[0] + "." + admin.split("\\.")[1] + "." + parts[2]));
+        // flip a character in the middle of the signature; the last one partly encodes padding bits
+        char c = parts[2].charAt(10);
+        assertNull(jwt.parseToken(parts[0] + "." + parts[1] + "." + parts[2].substring(0, 10) + (c == 'A' ? 'B' : 'A') + parts[2].substring(11)));
+        assertNull(new JwtService("another-secret", 15, 100).parseToken(token));
+    }
+
+    @Test
+    void fullCacheStillVerifiesEveryToken() {
+        JwtService small = new JwtService(SECRET, 15, 2);
+        List<UUID> users = new ArrayList<>();
+        List<String> tokens = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            users.add(UUID.randomUUID());
+            tokens.add(small.generateAccessToken(users.get(i), Role.CITIZEN));
+        }
+        for (int round = 0; round < 2; round++) {
+            for (int i = 0; i < tokens.size(); i++) assertEquals(users.get(i), small.parseToken(tokens.get(i)).userId());
+        }
+    }
+}
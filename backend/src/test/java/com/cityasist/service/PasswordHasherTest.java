@@ -0,0 +1,30 @@
+package com.cityasist.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PasswordHasherTest {
+    private final PasswordHasher hasher = new PasswordHasher(new BCryptPasswordEncoder(5), 5, 1, 4, 5000);
+
+    @AfterEach
+    void shutdown() {
+        hasher.shutdown();
+    }
+
+    @Test
+    void rehashesWhenStoredCostDiffersEitherWay() {
+        assertTrue(hasher.needsRehash(new BCryptPasswordEncoder(4).encode("secret")));
+        assertTrue(hasher.needsRehash(new BCryptPasswordEncoder(6).encode("secret")));
+        assertFalse(hasher.needsRehash(hasher.hash("secret")));
+    }
+
+    @Test
+    void rehashesWhatIsNotBcrypt() {
+        assertTrue(hasher.needsRehash("plain"));
+        assertFalse(hasher.needsRehash(null));
+    }
+}
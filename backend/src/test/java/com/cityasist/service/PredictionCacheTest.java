@@ -0,0 +1,130 @@
+package com.cityasist.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PredictionCacheTest {
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final PredictionCache cache = new PredictionCache(true, 60, 100, 0.01, "rainfall_mm=1", registry);
+    private final ExecutorService pool = Executors.newFixedThreadPool(8);
+
+    @AfterEach
+    void shutdown() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    void concurrentMissesShareOneComputation() throws Exception {
+        AtomicInteger computations = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        List<Future<Map<String, Object>>> results = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            results.add(pool.submit(() -> cache.get("flood", Map.of("rainfall_mm", 12.0), () -> {
+                computations.incrementAndGet();
+                started.countDown();
+                await(release);
+                return Map.of("risk", "high");
+            })));
+        }
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        // let the followers queue up behind the leader before it finishes
+        Thread.sleep(100);
+        release.countDown();
+        Map<String, Object> first = results.get(0).get(5, TimeUnit.SECONDS);
+        for (Future<Map<String, Object>> r : results) assertSame(first, r.get(5, TimeUnit.SECONDS));
+        assertEquals(1, computations.get());
+        assertEquals(1, count("miss"));
+        assertEquals(7, count("hit") + count("shared"));
+    }
+
+    @Test
+    void nearbyFeaturesShareAnEntry() {
+        AtomicInteger computations = new AtomicInteger();
+        cache.get("flood", Map.of("rainfall_mm", 10.2), () -> Map.of("n", computations.incrementAndGet()));
+        cache.get("flood", Map.of("rainfall_mm", "10.4"), () -> Map.of("n", computations.incrementAndGet()));
+        assertEquals(1, computations.get());
+        cache.get("flood", Map.of("rainfall_mm", 10.6), () -> Map.of("n", computations.incrementAndGet()));
+        cache.get("aqi", Map.of("rainfall_mm", 10.2), () -> Map.of("n", computations.incrementAndGet()));
+        assertEquals(3, computations.get());
+    }
+
+    @Test
+    void rejectedResultsAreNotStored() {
+        AtomicInteger computations = new AtomicInteger();
+        for (int i = 0; i < 2; i++) {
+            cache.get("flood", Map.of(), () -> Map.of("source", "local", "n", computations.incrementAndGet()),
+                    out -> "remote".equals(out.get("source")));
+        }
+        assertEquals(2, computations.get());
+        cache.get("flood", Map.of(), () -> Map.of("source", "remote"), out -> "remote".equals(out.get("source")));
+        assertEquals(Map.of("source", "remote"), cache.get("flood", Map.of(), () -> Map.of("source", "local")));
+    }
+
+    @Test
+    void unsharedCallsNeitherJoinNorLeadInFlightComputations() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Future<Map<String, Object>> slow = pool.submit(() -> cache.get("flood", Map.of(), () -> {
+            started.countDown();
+            await(release);
+            return Map.of("source", "remote", "n", 1);
+        }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        // a hedged caller answers on its own instead of waiting behind the slow leader
+        Map<String, Object> own = cache.getUnshared("flood", Map.of(), () -> Map.of("source", "local"),
+                out -> "remote".equals(out.get("source")));
+        assertEquals(Map.of("source", "local"), own);
+        release.countDown();
+        assertEquals(Map.of("source", "remote", "n", 1), slow.get(5, TimeUnit.SECONDS));
+        // and the leader's remote answer now serves unshared callers from the cache
+        assertEquals(Map.of("source", "remote", "n", 1),
+                cache.getUnshared("flood", Map.of(), () -> Map.of("source", "local"), out -> true));
+    }
+
+    @Test
+    void followersRecomputeWhenTheLeaderFails() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Future<Map<String, Object>> leader = pool.submit(() -> cache.get("flood", Map.of(), () -> {
+            started.countDown();
+            await(release);
+            throw new IllegalStateException("remote down");
+        }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        Future<Map<String, Object>> follower = pool.submit(() -> cache.get("flood", Map.of(), () -> Map.of("risk", "low")));
+        Thread.sleep(100);
+        release.countDown();
+        Exception e = assertThrows(Exception.class, () -> leader.get(5, TimeUnit.SECONDS));
+        assertTrue(e.getCause() instanceof IllegalStateException);
+        assertEquals(Map.of("risk", "low"), follower.get(5, TimeUnit.SECONDS));
+    }
+
+    private double count(String result) {
+        return registry.get("ai.cache.requests").tag("result", result).counter().count();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.cityasist.service;
+
+import com.cityasist.domain.Incident;
+import com.cityasist.domain.IncidentTimeline;
+import com.cityasist.repo.IncidentTimelineRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class TimelineWriterTest {
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final TimelineWriter writer = new TimelineWriter(mock(IncidentTimelineRepository.class), jdbcTemplate,
+            mock(PlatformTransactionManager.class), true, 100, 10, 5, "write-through", 0, 0);
+    private final Incident incident = new Incident();
+
+    TimelineWriterTest() {
+        incident.setId(UUID.randomUUID());
+    }
+
+    @AfterEach
+    void stop() throws InterruptedException {
+        writer.shutdown();
+    }
+
+    @Test
+    void entryStaysVisibleWhileItsBatchIsBeingWritten() throws Exception {
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(jdbcTemplate.batchUpdate(anyString(), anyCollection(), anyInt(), any())).thenAnswer(inv -> {
+            writing.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return new int[0][];
+        });
+        IncidentTimeline written = writer.write(entry("Status changed"));
+
+        // drained from the queue, not committed yet
+        assertTrue(writing.await(5, TimeUnit.SECONDS));
+        assertEquals(written.getId(), writer.pending(incident.getId()).get(0).getId());
+        assertTrue(writer.pending(UUID.randomUUID()).isEmpty());
+
+        release.countDown();
+        awaitTrue(() -> writer.pending(incident.getId()).isEmpty());
+    }
+
+    @Test
+    void droppedEntryIsNoLongerPending() throws Exception {
+        when(jdbcTemplate.batchUpdate(anyString(), anyCollection(), anyInt(), any()))
+                .thenThrow(new IllegalStateException("incident deleted"));
+        writer.write(entry("Assigned"));
+        awaitTrue(() -> writer.pending(incident.getId()).isEmpty());
+    }
+
+    private IncidentTimeline entry(String text) {
+        IncidentTimeline t = new IncidentTimeline();
+        t.setIncident(incident);
+        t.setTime(Instant.now());
+        t.setActor("system");
+        t.setText(text);
+        return t;
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) throw new AssertionError("condition not met in time");
+            Thread.sleep(5);
+        }
+    }
+}
@@ -164,7 +164,7 @@ async function tryRefreshToken(): Promise<boolean> {
     const access = data?.access_token;
     if (!access) return false;
 
-    setTokens(access);
+    setTokens(access, data?.refresh_token);
     return true;
   } catch {
     return false;
@@ -228,13 +228,112 @@ export const AlertsAPI = {
 
   read: async (id: string) =>
     request(`/v1/alerts/${id}/read`, { method: 'POST' }),
+
+  readAll: async () =>
+    request('/v1/alerts/read-all', { method: 'POST' }),
+
+  stream: (handlers: AlertStreamHandlers) => streamAlerts(handlers),
 };
 
+// ---------------------------------------------
+// Alert stream (server-sent events over fetch)
+// ---------------------------------------------
+// EventSource can't send an Authorization header, so the stream is read with fetch instead.
+// On reconnect Last-Event-ID (the alert seq) lets the server replay what was missed.
+export type AlertStreamHandlers = {
+  onAlert: (alert: any) => void;
+  onResync?: () => void;
+};
+
+type StreamEvent = { id?: string; event: string; data: string };
+
+function streamAlerts(handlers: AlertStreamHandlers): () => void {
+  const controller = new AbortController();
+  let lastEventId: string | undefined;
+  let retryMs = 1000;
+
+  const run = async () => {
+    while (!controller.signal.aborted) {
+      try {
+        const headers: Record<string, string> = { Accept: 'text/event-stream' };
+        const token = getAccessToken();
+        if (token) headers['Authorization'] = `Bearer ${token}`;
+        if (lastEventId) headers['Last-Event-ID'] = lastEventId;
+
+        const res = await fetch(`${API_URL}/v1/alerts/stream`, { headers, signal: controller.signal });
+        if (res.status === 401) {
+          if (!(await tryRefreshToken())) return;
+          continue;
+        }
+        if (!res.ok || !res.body) throw new Error(`HTTP ${res.status}`);
+
+        retryMs = 1000;
+        await readEvents(res.body, (e) => {
+          if (e.id) lastEventId = e.id;
+          if (e.event === 'alert') handlers.onAlert(JSON.parse(e.data));
+          else if (e.event === 'resync') handlers.onResync?.();
+        });
+      } catch {
+        if (controller.signal.aborted) return;
+      }
+      await new Promise((r) => setTimeout(r, retryMs));
+      retryMs = Math.min(retryMs * 2, 30000);
+    }
+  };
+
+  run();
+  return () => controller.abort();
+}
+
+async function readEvents(body: ReadableStream<Uint8Array>, onEvent: (e: StreamEvent) => void) {
+  const reader = body.getReader();
+  const decoder = new TextDecoder();
+  let buffer = '';
+
+  for (;;) {
+    const { value, done } = await reader.read();
+    if (done) return;
+    buffer += decoder.decode(value, { stream: true });
+
+    let end: number;
+    while ((end = buffer.indexOf('\n\n')) >= 0) {
+      const block = buffer.slice(0, end);
+      buffer = buffer.slice(end + 2);
+
+      const e: StreamEvent = { event: 'message', data: '' };
+      const data: string[] = [];
+      for (const raw of block.split('\n')) {
+        const line = raw.endsWith('\r') ? raw.slice(0, -1) : raw;
+        if (!line || line.startsWith(':')) continue; // comments are heartbeats
+        const colon = line.indexOf(':');
+        const field = colon < 0 ? line : line.slice(0, colon);
+        let v = colon < 0 ? '' : line.slice(colon + 1);
+        if (v.startsWith(' ')) v = v.slice(1);
+        if (field === 'id') e.id = v;
+        else if (field === 'event') e.event = v;
+        else if (field === 'data') data.push(v);
+      }
+      if (data.length) onEvent({ ...e, data: data.join('\n') });
+    }
+  }
+}
+
 // ---------------------------------------------
 // Users API
 // ---------------------------------------------
 export const UsersAPI = {
-  listOperators: async () => request('/v1/users/operators'),
+  listOperators: async (p?: { page?: number; size?: number }) =>
+    request<Page<any>>(`/v1/users/operators?page=${p?.page ?? 0}&size=${p?.size ?? 100}`),
+
+  // Walks every page, so pickers see all operators however many there are
+  listAllOperators: async (size = 100) => {
+    const all: any[] = [];
+    for (let page = 0; ; page++) {
+      const res = await UsersAPI.listOperators({ page, size });
+      all.push(...(res.content || []));
+      if ((res.content || []).length === 0 || page + 1 >= res.totalPages) return all;
+    }
+  },
 
   createOperator: async (payload) =>
     request('/v1/users/operators', {
@@ -262,6 +361,14 @@ export const AiAPI = {
 
   predictAqi: async (features) =>
     request('/v1/ai/predict/aqi', { method: 'POST', body: JSON.stringify(features) }),
+
+  // Precomputed flood risk per zone, refreshed by the backend on a schedule
+  getRiskMap: async (): Promise<FloodRiskMap> => request('/v1/ai/risk-map'),
+};
+
+export type FloodRiskMap = {
+  computedAt: string | null;
+  zones: Record<string, { zone: string; probability: number | null; label: string | null; model: string | null; source: string | null; readingsAt: string }>;
 };
 
 // ---------------------------------------------
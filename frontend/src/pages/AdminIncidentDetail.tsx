@@ -64,7 +64,7 @@ export default function AdminIncidentDetail() {
       const useNum = !Number.isNaN(num);
       const [inc, ops, tl] = await Promise.all([
         useNum ? IncidentsAPI.get(num) : IncidentsAPI.getById(id),
-        UsersAPI.listOperators(),
+        UsersAPI.listAllOperators(),
         useNum ? IncidentsAPI.timeline(num) : IncidentsAPI.timelineById(id)
       ]);
       setIncident(inc);
@@ -30,8 +30,7 @@ export default function AdminIncidents() {
 
   const loadOperators = async () => {
     try {
-      const ops = await UsersAPI.listOperators();
-      setOperators(ops);
+      setOperators(await UsersAPI.listAllOperators());
     } catch (e: any) {
       toast.error(e?.message || 'Failed to load operators');
     }
@@ -1,7 +1,7 @@
 import { useEffect, useMemo, useRef, useState } from 'react';
 import { Card } from '@/components/ui/card';
 import { Button } from '@/components/ui/button';
-import { IncidentsAPI, SensorsAPI, type Incident, AqiAPI, type CityAQI } from '@/lib/api';
+import { IncidentsAPI, SensorsAPI, type Incident, AqiAPI, type CityAQI, AiAPI, type FloodRiskMap } from '@/lib/api';
 import { supabase } from '@/integrations/supabase/client';
 import 'leaflet/dist/leaflet.css';
 import { MapContainer, TileLayer, Marker, CircleMarker, Polyline, Popup, useMap, useMapEvents } from 'react-leaflet';
@@ -22,19 +22,22 @@ L.Icon.Default.mergeOptions({
   shadowUrl: markerShadow,
 });
 
+const FLOOD_RISK_REFRESH_MS = 60_000;
+
 export default function MapPage() {
   const navigate = useNavigate();
   const [incidents, setIncidents] = useState<Incident[]>([]);
   const mapRef = useRef<L.Map | null>(null);
-  const [sensors, setSensors] = useState<Array<{ id: string; type: string; label: string; lat?: number; lon?: number; status?: string }>>([]);
+  const [sensors, setSensors] = useState<Array<{ id: string; type: string; label: string; zone?: string; lat?: number; lon?: number; status?: string }>>([]);
   const [services, setServices] = useState<Array<{ id: string; name: string; category: string; lat: number; lng: number }>>([]);
   const [showIncidents, setShowIncidents] = useState(true);
   const [showServices, setShowServices] = useState(true);
-  const [layers, setLayers] = useState({ aqi: true });
+  const [layers, setLayers] = useState({ aqi: true, flood: false });
   const [routeCoords, setRouteCoords] = useState<Array<[number, number]>>([]);
   const [dest, setDest] = useState<{ lat: number; lng: number; label?: string; cat?: string; addr?: string } | null>(null);
   const [selected, setSelected] = useState<Incident | null>(null);
   const [aqiData, setAqiData] = useState<CityAQI[] | null>(null);
+  const [floodRisk, setFloodRisk] = useState<FloodRiskMap | null>(null);
 
   // Optional: render a suggested route based on query param
   const locationHook = useLocation();
@@ -205,6 +208,24 @@ export default function MapPage() {
     }
   }, [layers.aqi, aqiData]);
 
+  // The risk map is recomputed on the server every few minutes; refresh it while the layer is shown
+  useEffect(() => {
+    if (!layers.flood) return;
+    let cancelled = false;
+    const load = async () => {
+      try {
+        const map = await AiAPI.getRiskMap();
+        if (!cancelled) setFloodRisk(map);
+      } catch {}
+    };
+    load();
+    const timer = setInterval(load, FLOOD_RISK_REFRESH_MS);
+    return () => {
+      cancelled = true;
+      clearInterval(timer);
+    };
+  }, [layers.flood]);
+
   function BoundsTracker() {
     useMapEvents({
       moveend(e) {
@@ -256,6 +277,7 @@ export default function MapPage() {
         <Card className="p-4 flex flex-wrap gap-3 items-center">
           <label className="flex items-center gap-2"><input type="checkbox" checked={showIncidents} onChange={e => setShowIncidents(e.target.checked)} />Incidents</label>
           <label className="flex items-center gap-2"><input type="checkbox" checked={layers.aqi} onChange={e => setLayers({ ...layers, aqi: e.target.checked })} />AQI</label>
+          <label className="flex items-center gap-2"><input type="checkbox" checked={layers.flood} onChange={e => setLayers({ ...layers, flood: e.target.checked })} />Flood risk</label>
           <label className="flex items-center gap-2"><input type="checkbox" checked={showServices} onChange={e => setShowServices(e.target.checked)} />Services</label>
         </Card>
 
@@ -285,6 +307,21 @@ export default function MapPage() {
               const icon = L.divIcon({ html: `<div style=\"background:${color};color:white;border-radius:6px;padding:2px 6px;font-size:12px;box-shadow:0 1px 3px rgba(0,0,0,.3)\">${emoji} ${s.name}</div>`, className: '' });
               return <Marker key={`svc-${s.id}`} position={[s.lat, s.lng]} icon={icon} />;
             })}
+            {/* Flood risk overlay: each sensor takes its zone's precomputed risk */}
+            {layers.flood && floodRisk && sensors
+              .filter(s => s.zone && floodRisk.zones[s.zone] && typeof s.lat === 'number' && typeof s.lon === 'number')
+              .map(s => {
+                const risk = floodRisk.zones[s.zone as string];
+                const color = risk.label === 'CRITICAL' ? '#7f1d1d' :
+                  risk.label === 'HIGH' ? '#dc2626' :
+                  risk.label === 'MEDIUM' ? '#f97316' :
+                  risk.label === 'LOW' ? '#eab308' : '#2563eb';
+                return (
+                  <CircleMarker key={`flood-${s.id}`} center={[s.lat as number, s.lon as number]} radius={14} pathOptions={{ color, fillColor: color, fillOpacity: 0.3 }}>
+                    <Popup>Zone {risk.zone}: {risk.label}{risk.probability != null ? ` (${Math.round(risk.probability * 100)}%)` : ''}</Popup>
+                  </CircleMarker>
+                );
+              })}
             {/* AQI overlay */}
             {layers.aqi && aqiData && (
               <>
@@ -20,6 +20,19 @@ interface Alert {
   created_at: string;
 }
 
+const fromBackend = (a: any, userId: string) => ({
+  id: a.id,
+  user_id: userId,
+  type: a.type,
+  title: a.title,
+  message: a.message,
+  severity: a.severity,
+  zone: a.zone || '',
+  is_read: false,
+  created_at: a.createdAt || a.created_at || new Date().toISOString(),
+  origin: 'backend' as const,
+});
+
 export default function Notifications() {
   const { user } = useAuth();
   const [alerts, setAlerts] = useState<Alert[]>([]);
@@ -29,23 +42,24 @@ export default function Notifications() {
     loadAlerts();
   }, [user]);
 
+  // Live alerts instead of polling; a resync means the gap was too big to replay, so reload
+  useEffect(() => {
+    if (!user) return;
+    return AlertsAPI.stream({
+      onAlert: (a) =>
+        setAlerts((current) =>
+          current.some((x) => x.id === a.id) ? current : [fromBackend(a, user.id), ...current]
+        ),
+      onResync: () => loadAlerts(),
+    });
+  }, [user]);
+
   const loadAlerts = async () => {
     if (!user) return;
 
     try {
       const backend = await AlertsAPI.list({ page: 0, size: 50 });
-      const backendAlerts = (backend.content || []).map((a: any) => ({
-        id: a.id,
-        user_id: user.id,
-        type: a.type,
-        title: a.title,
-        message: a.message,
-        severity: a.severity,
-        zone: a.zone || '',
-        is_read: false,
-        created_at: a.createdAt || a.created_at || new Date().toISOString(),
-        origin: 'backend' as const,
-      }));
+      const backendAlerts = (backend.content || []).map((a: any) => fromBackend(a, user.id));
 
       const { data, error } = await supabase
         .from('alerts')
@@ -88,13 +102,20 @@ export default function Notifications() {
   const markAllAsRead = async () => {
     if (!user) return;
 
+    try {
+      await AlertsAPI.readAll();
+    } catch (e: any) {
+      toast.error(e?.message || 'Failed to mark notifications as read');
+      return;
+    }
     await supabase
       .from('alerts')
       .update({ is_read: true })
       .eq('user_id', user.id)
       .eq('is_read', false);
-    
-    setAlerts(alerts.map(a => ({ ...a, is_read: true })));
+
+    // Backend alerts disappear once read, like markAsRead does for a single one
+    setAlerts(alerts.filter(a => (a as any).origin !== 'backend').map(a => ({ ...a, is_read: true })));
     toast.success('All notifications marked as read');
   };
 
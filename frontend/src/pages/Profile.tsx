@@ -36,8 +36,7 @@ export default function Profile() {
 
   const loadOperators = async () => {
     try {
-      const ops = await UsersAPI.listOperators();
-      setOperators(ops);
+      setOperators(await UsersAPI.listAllOperators());
     } catch (e) { /* ignore */ }
   };
 